@@ -0,0 +1,46 @@
+package com.example.newland.car;
+
+// 网关调用的实测统计：只记录每次调用实际花费的时间和成败。
+// Http 不暴露底层连接，连接是新建还是复用无法观测，这里不做估算
+public class CallStats {
+
+    private long calls, failed;
+    private long totalNanos, maxNanos, lastNanos;
+
+    synchronized void record(long nanos, boolean ok) {
+        if (!ok) {
+            failed++;
+            return;
+        }
+        calls++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        lastNanos = nanos;
+    }
+
+    public synchronized long getCallCount() {
+        return calls;
+    }
+
+    public synchronized long getFailedCount() {
+        return failed;
+    }
+
+    public synchronized double getAverageMillis() {
+        return calls == 0 ? 0 : totalNanos / 1e6 / calls;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    public synchronized double getLastMillis() {
+        return lastNanos / 1e6;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("calls=%d failed=%d avg=%.1fms max=%.1fms last=%.1fms",
+                calls, failed, getAverageMillis(), getMaxMillis(), getLastMillis());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.example.newland.car;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 一组按顺序执行的执行器写入：整组串行、不与其他批次交错。中途失败时执行 onFailure() 给出的补偿批次，
+// 把设备直接写到已知的安全状态，而不是依赖影子状态里可能已被清掉的原值；
+// 之后本批涉及的键都从 DeviceShadow 里清掉，设备状态视为未知。
+// 设备已处于目标状态的写入由 DeviceShadow 省掉
+public class CommandBatch {
+
+    public static class Result {
+        public final String[] keys;
+        public final long[] times;
+        public final int failedAt;
+        public final int suppressed;
+        public final Exception error;
+        // 失败后补偿批次的结果，没有失败或没有补偿时为 null
+        public final Result compensation;
+
+        Result(String[] keys, long[] times, int failedAt, int suppressed, Exception error, Result compensation) {
+            this.keys = keys;
+            this.times = times;
+            this.failedAt = failedAt;
+            this.suppressed = suppressed;
+            this.error = error;
+            this.compensation = compensation;
+        }
+
+        public boolean isOk() {
+            return failedAt < 0;
+        }
+
+        // 某个键最后一次写入完成的时间，未执行到则为 0
+        public long timeOf(String key) {
+            for (int i = keys.length - 1; i >= 0; i--) {
+                if (keys[i].equals(key)) return times[i];
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(isOk() ? "ok" : "failed at " + keys[failedAt]);
+            sb.append(" (").append(suppressed).append(" suppressed)");
+            for (int i = 0; i < keys.length && times[i] > 0; i++) {
+                sb.append(' ').append(keys[i]).append('@').append(times[i] - times[0]).append("ms");
+            }
+            if (compensation != null) sb.append(", compensation ").append(compensation);
+            return sb.toString();
+        }
+    }
+
+    private static final ExecutorService commands = Executors.newSingleThreadExecutor();
+
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+    private long timeoutMs = Gateway.DEFAULT_TIMEOUT_MS;
+    private boolean force;
+    private CommandBatch compensation;
+
+    public CommandBatch post(String key, String value) {
+        keys.add(key);
+        values.add(value);
+        return this;
+    }
+
+    // 每条写入的截止时间，超时按失败处理
+    public CommandBatch timeout(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    // 不查影子状态，每条都真正发送；用于安全复位这类不能被误判为"已是目标状态"的写入
+    public CommandBatch force() {
+        this.force = true;
+        return this;
+    }
+
+    // 中途失败时执行的补偿写入，应当把设备带到安全状态；补偿批次总是真正发送
+    public CommandBatch onFailure(CommandBatch compensation) {
+        this.compensation = compensation.force();
+        return this;
+    }
+
+    public Result execute() {
+        long start = System.nanoTime();
+        try {
+            return apply();
+        } finally {
+            Gateway.blocked(start);
+        }
+    }
+
+    private Result apply() {
+        String[] ks = keys.toArray(new String[0]);
+        long[] times = new long[ks.length];
+        int suppressed = 0;
+        synchronized (CommandBatch.class) {
+            for (int i = 0; i < ks.length; i++) {
+                String value = values.get(i);
+                if (!force && DeviceShadow.isCurrent(ks[i], value)) {
+                    suppressed++;
+                    times[i] = System.currentTimeMillis();
+                    continue;
+                }
+                try {
+                    Gateway.postAsync(ks[i], value, timeoutMs).join();
+                } catch (RuntimeException e) {
+                    Result compensated = compensation == null ? null : compensation.apply();
+                    // Http.post 无法被中断，超时的写入仍可能在补偿之后到达，所以补偿的确认也不可信
+                    for (int j = 0; j <= i; j++) DeviceShadow.forget(ks[j]);
+                    if (compensation != null) {
+                        for (String k : compensation.keys) DeviceShadow.forget(k);
+                    }
+                    return new Result(ks, times, i, suppressed, e, compensated);
+                }
+                DeviceShadow.ack(ks[i], value);
+                times[i] = System.currentTimeMillis();
+            }
+        }
+        return new Result(ks, times, -1, suppressed, null, null);
+    }
+
+    // 在后台命令线程上排队执行，不阻塞界面线程；多个批次按提交顺序流水执行
+    public CompletableFuture<Result> submit() {
+        return CompletableFuture.supplyAsync(this::apply, commands);
+    }
+}
\ No newline at end of file
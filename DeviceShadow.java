@@ -0,0 +1,48 @@
+package com.example.newland.car;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 执行器影子状态：记录每个键最后一次被网关确认的值，写入时只发送真正变化的部分
+public class DeviceShadow {
+
+    private static final Map<String, String> values = new HashMap<>();
+    private static final AtomicLong posted = new AtomicLong();
+    private static final AtomicLong suppressed = new AtomicLong();
+
+    public static synchronized String get(String key) {
+        return values.get(key);
+    }
+
+    // 设备已处于该状态时返回 true，并计入被省掉的写入次数
+    public static synchronized boolean isCurrent(String key, String value) {
+        if (value.equals(values.get(key))) {
+            suppressed.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public static synchronized void ack(String key, String value) {
+        values.put(key, value);
+        posted.incrementAndGet();
+    }
+
+    public static synchronized void forget(String key) {
+        values.remove(key);
+    }
+
+    // 设备可能被外部改动过（重启、手动操作）时调用，下一次写入会全部发送
+    public static synchronized void invalidate() {
+        values.clear();
+    }
+
+    public static long getPostedCount() {
+        return posted.get();
+    }
+
+    public static long getSuppressedCount() {
+        return suppressed.get();
+    }
+}
\ No newline at end of file
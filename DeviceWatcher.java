@@ -0,0 +1,209 @@
+package com.example.newland.car;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 全进程共享的设备状态服务：一个读取线程，按键缓存最新值，没有界面观察时自动暂停。
+// 每个键有自己的读取周期：值变化后降到最小周期，无变化时指数退避到最大周期；
+// 车道键（uhf、m_limit）任一变化都会让所有车道键一起加速
+public class DeviceWatcher {
+
+    public interface Listener {
+        void onChange(String key, String value, long time);
+    }
+
+    private static class Rate {
+        final long minMs, maxMs;
+        final boolean lane;
+        long periodMs, due;
+
+        Rate(long minMs, long maxMs, boolean lane) {
+            this.minMs = minMs;
+            this.maxMs = maxMs;
+            this.lane = lane;
+            this.periodMs = minMs;
+        }
+    }
+
+    // 到期时间相差不到这么多的键合并成一次读取
+    private static final long BATCH_SLACK_MS = 50;
+
+    private static final DeviceWatcher INSTANCE = new DeviceWatcher();
+
+    public static DeviceWatcher get() {
+        return INSTANCE;
+    }
+
+    private final Map<Listener, String[]> observers = new LinkedHashMap<>();
+    private final Map<String, String> last = new HashMap<>();
+    private final Map<String, Rate> rates = new HashMap<>();
+    private String[] keys = new String[0];
+    private ScheduledExecutorService service;
+    private ScheduledFuture<?> next;
+    private final AtomicLong reads = new AtomicLong();
+
+    // 车道键最多退避到 800ms：空闲车道上第一辆车的标签也要在一秒内读到
+    private static final long LANE_MAX_MS = 800;
+
+    private DeviceWatcher() {
+        configure("uhf", 200, LANE_MAX_MS, true);
+        configure("m_limit", 200, LANE_MAX_MS, true);
+        configure("m_light", 2000, 30000, false);
+        configure("m_temp", 2000, 30000, false);
+        configure("m_hum", 2000, 30000, false);
+    }
+
+    public synchronized void configure(String key, long minMs, long maxMs, boolean lane) {
+        rates.put(key, new Rate(minMs, maxMs, lane));
+    }
+
+    public void observe(Listener listener, String... keys) {
+        Map<String, String> current = new LinkedHashMap<>();
+        synchronized (this) {
+            observers.put(listener, keys);
+            updateKeys();
+            for (String key : keys) {
+                if (last.containsKey(key)) current.put(key, last.get(key));
+                rate(key).due = 0;
+            }
+            if (service == null) service = Executors.newSingleThreadScheduledExecutor();
+            reschedule();
+        }
+        // 新界面立即拿到已知的最新值，不必等下一次读取
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, String> e : current.entrySet()) {
+            listener.onChange(e.getKey(), e.getValue(), now);
+        }
+    }
+
+    public synchronized void remove(Listener listener) {
+        if (observers.remove(listener) == null) return;
+        updateKeys();
+        if (observers.isEmpty() && service != null) {
+            service.shutdownNow();
+            service = null;
+            next = null;
+        }
+    }
+
+    public synchronized String get(String key) {
+        return last.get(key);
+    }
+
+    public synchronized int getObserverCount() {
+        return observers.size();
+    }
+
+    public long getReadCount() {
+        return reads.get();
+    }
+
+    // 当前生效的读取周期（毫秒），供监控使用
+    public synchronized Map<String, Long> getPeriods() {
+        Map<String, Long> periods = new LinkedHashMap<>();
+        for (String key : keys) periods.put(key, rate(key).periodMs);
+        return periods;
+    }
+
+    private Rate rate(String key) {
+        Rate r = rates.get(key);
+        if (r == null) {
+            r = new Rate(500, 5000, false);
+            rates.put(key, r);
+        }
+        return r;
+    }
+
+    private void updateKeys() {
+        Set<String> all = new LinkedHashSet<>();
+        for (String[] ks : observers.values()) {
+            for (String k : ks) all.add(k);
+        }
+        keys = all.toArray(new String[0]);
+    }
+
+    private void reschedule() {
+        if (service == null || keys.length == 0) return;
+        long due = Long.MAX_VALUE;
+        for (String key : keys) due = Math.min(due, rate(key).due);
+        if (next != null) next.cancel(false);
+        long delay = Math.max(0, due - System.currentTimeMillis());
+        next = service.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Http 只有请求/应答接口，这里用读取 + 变化检测模拟订阅：监听者只在值变化时收到事件
+    private void poll() {
+        try {
+            long now = System.currentTimeMillis();
+            List<String> due = new ArrayList<>();
+            synchronized (this) {
+                for (String key : keys) {
+                    if (rate(key).due <= now + BATCH_SLACK_MS) due.add(key);
+                }
+            }
+            if (!due.isEmpty()) read(due.toArray(new String[0]));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (this) {
+                reschedule();
+            }
+        }
+    }
+
+    private void read(String[] ks) {
+        Snapshot s = Gateway.read(ks);
+        reads.addAndGet(ks.length);
+        long now = System.currentTimeMillis();
+        // 每次读卡结果都进 UhfLog，包括值没变和没读到（读取失败也算漏读），读卡率才是真实的
+        for (String key : ks) {
+            if ("uhf".equals(key)) UhfLog.get().record(s.get(key), s.getTime());
+        }
+
+        Map<String, List<Listener>> events = new LinkedHashMap<>();
+        synchronized (this) {
+            boolean lane = false;
+            for (String key : ks) {
+                Rate r = rate(key);
+                String value = s.get(key);
+                if (value != null && !value.equals(last.put(key, value))) {
+                    r.periodMs = r.minMs;
+                    lane |= r.lane;
+                    List<Listener> targets = new ArrayList<>();
+                    for (Map.Entry<Listener, String[]> e : observers.entrySet()) {
+                        for (String k : e.getValue()) {
+                            if (k.equals(key)) targets.add(e.getKey());
+                        }
+                    }
+                    events.put(key, targets);
+                } else {
+                    r.periodMs = Math.min(r.periodMs * 2, r.maxMs);
+                }
+                r.due = now + r.periodMs;
+            }
+            // 车道上有动静：其余车道键也立即转入快速读取
+            if (lane) {
+                for (String key : keys) {
+                    Rate r = rate(key);
+                    if (!r.lane) continue;
+                    r.periodMs = r.minMs;
+                    r.due = Math.min(r.due, now + r.minMs);
+                }
+            }
+        }
+        for (Map.Entry<String, List<Listener>> e : events.entrySet()) {
+            String value = s.get(e.getKey());
+            for (Listener l : e.getValue()) l.onChange(e.getKey(), value, s.getTime());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.example.newland.car;
+
+// 96 位 UHF EPC 打包成两个 long：hi 存高 32 位，lo 存低 64 位。
+// 解析时忽略空白、不区分大小写，"E2 80 68 ..." 与 "e28068..." 得到同一个键
+public final class EpcKey {
+
+    public static final int NIBBLES = 24;
+
+    public final long hi, lo;
+
+    public EpcKey(long hi, long lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    public static EpcKey parse(CharSequence epc) {
+        long[] out = new long[2];
+        if (!parse(epc, out)) throw new IllegalArgumentException("bad EPC: " + epc);
+        return new EpcKey(out[0], out[1]);
+    }
+
+    // 解析到调用方提供的数组里（out[0] = hi, out[1] = lo），不分配对象；格式不对返回 false
+    public static boolean parse(CharSequence epc, long[] out) {
+        if (epc == null) return false;
+        long hi = 0, lo = 0;
+        int n = 0;
+        for (int i = 0; i < epc.length(); i++) {
+            char c = epc.charAt(i);
+            if (c <= ' ') continue;
+            int d = nibble(c);
+            if (d < 0 || ++n > NIBBLES) return false;
+            hi = (hi << 4) | (lo >>> 60);
+            lo = (lo << 4) | d;
+        }
+        out[0] = hi;
+        out[1] = lo;
+        return n == NIBBLES;
+    }
+
+    static int nibble(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1;
+    }
+
+    static int hash(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EpcKey && ((EpcKey) o).hi == hi && ((EpcKey) o).lo == lo;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(hi, lo);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(NIBBLES * 3);
+        for (int i = NIBBLES - 1; i >= 0; i -= 2) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(Character.toUpperCase(Character.forDigit(digit(i), 16)));
+            sb.append(Character.toUpperCase(Character.forDigit(digit(i - 1), 16)));
+        }
+        return sb.toString();
+    }
+
+    private int digit(int i) {
+        return (int) ((i >= 16 ? hi >>> ((i - 16) * 4) : lo >>> (i * 4)) & 0xf);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.example.newland.car;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 以打包 EPC（两个 long）为键的开放寻址哈希表，查找不分配任何对象。
+// 非线程安全，由调用方加锁
+public class EpcMap<V> {
+
+    private long[] his, los;
+    private Object[] vals;
+    private int size;
+
+    public EpcMap() {
+        this(16);
+    }
+
+    public EpcMap(int expected) {
+        int cap = 16;
+        while (cap < expected * 2) cap <<= 1;
+        his = new long[cap];
+        los = new long[cap];
+        vals = new Object[cap];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long hi, long lo) {
+        int mask = vals.length - 1;
+        for (int i = EpcKey.hash(hi, lo) & mask; vals[i] != null; i = (i + 1) & mask) {
+            if (his[i] == hi && los[i] == lo) return (V) vals[i];
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long hi, long lo, V value) {
+        if (value == null) throw new NullPointerException("value");
+        if ((size + 1) * 2 > vals.length) resize(vals.length << 1);
+        int mask = vals.length - 1;
+        int i = EpcKey.hash(hi, lo) & mask;
+        for (; vals[i] != null; i = (i + 1) & mask) {
+            if (his[i] == hi && los[i] == lo) {
+                V old = (V) vals[i];
+                vals[i] = value;
+                return old;
+            }
+        }
+        his[i] = hi;
+        los[i] = lo;
+        vals[i] = value;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long hi, long lo) {
+        int mask = vals.length - 1;
+        int i = EpcKey.hash(hi, lo) & mask;
+        for (; vals[i] != null; i = (i + 1) & mask) {
+            if (his[i] == hi && los[i] == lo) break;
+        }
+        if (vals[i] == null) return null;
+        V old = (V) vals[i];
+        vals[i] = null;
+        size--;
+        // 线性探测删除：把后面同一探测链上的元素往前挪，保证查找不断链
+        for (int j = (i + 1) & mask; vals[j] != null; j = (j + 1) & mask) {
+            int home = EpcKey.hash(his[j], los[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                his[i] = his[j];
+                los[i] = los[j];
+                vals[i] = vals[j];
+                vals[j] = null;
+                i = j;
+            }
+        }
+        return old;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> list = new ArrayList<>(size);
+        for (Object v : vals) {
+            if (v != null) list.add((V) v);
+        }
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize(int cap) {
+        long[] oh = his, ol = los;
+        Object[] ov = vals;
+        his = new long[cap];
+        los = new long[cap];
+        vals = new Object[cap];
+        size = 0;
+        for (int i = 0; i < ov.length; i++) {
+            if (ov[i] != null) put(oh[i], ol[i], (V) ov[i]);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.example.newland.car;
+
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Gateway {
+
+    public static final long DEFAULT_TIMEOUT_MS = 3000;
+    public static final int POOL_SIZE = 4;
+
+    // 有界 I/O 线程池：最多 4 个请求同时在途，排队超过 64 个直接拒绝。
+    // 连接保活由平台的 HttpURLConnection 默认连接池负责，这里不改它的参数
+    private static final ThreadPoolExecutor io = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(64), daemon("gateway-io"));
+    private static final ScheduledExecutorService deadlines =
+            Executors.newSingleThreadScheduledExecutor(daemon("gateway-deadline"));
+    private static final AtomicLong uiBlockedNanos = new AtomicLong();
+    private static final CallStats stats = new CallStats();
+    private static volatile boolean down;
+
+    static {
+        io.allowCoreThreadTimeOut(true);
+    }
+
+    // 一次读取多个键：各键并发请求，刷新耗时取决于最慢的一个而不是逐个相加
+    public static Snapshot read(String... keys) {
+        long start = System.nanoTime();
+        try {
+            return readAsync(DEFAULT_TIMEOUT_MS, keys).join();
+        } finally {
+            blocked(start);
+        }
+    }
+
+    public static CompletableFuture<Snapshot> readAsync(long timeoutMs, String... keys) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            futures.add(getAsync(key, timeoutMs));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((v, e) -> {
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                CompletableFuture<String> f = futures.get(i);
+                values.put(keys[i], f.isCompletedExceptionally() ? null : f.join());
+            }
+            return new Snapshot(values, System.currentTimeMillis());
+        });
+    }
+
+    public static CompletableFuture<String> getAsync(String key, long timeoutMs) {
+        return call(key, timeoutMs, () -> Http.get(key));
+    }
+
+    public static CompletableFuture<Void> postAsync(String key, String value, long timeoutMs) {
+        return call(key, timeoutMs, () -> {
+            Http.post(key, value);
+            return null;
+        });
+    }
+
+    public static CallStats getStats() {
+        return stats;
+    }
+
+    // 界面线程累计被同步网关调用阻塞的时间
+    public static long getUiBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(uiBlockedNanos.get());
+    }
+
+    static void blocked(long startNanos) {
+        Looper main = Looper.getMainLooper();
+        if (main != null && main == Looper.myLooper()) {
+            uiBlockedNanos.addAndGet(System.nanoTime() - startNanos);
+        }
+    }
+
+    // 网关出错或超时后，设备可能已被重启或手动改动，影子状态不再可信；恢复连通时再清一次
+    private static void health(boolean ok) {
+        if (!ok) {
+            down = true;
+            DeviceShadow.invalidate();
+        } else if (down) {
+            down = false;
+            DeviceShadow.invalidate();
+        }
+    }
+
+    private static <T> CompletableFuture<T> call(String key, long timeoutMs, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.whenComplete((v, e) -> health(e == null));
+        Future<?> running;
+        try {
+            running = io.submit(() -> {
+                long start = System.nanoTime();
+                boolean ok = false;
+                try {
+                    T value = task.call();
+                    ok = true;
+                    result.complete(value);
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    stats.record(System.nanoTime() - start, ok);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        if (timeoutMs > 0) {
+            ScheduledFuture<?> deadline = deadlines.schedule(() -> {
+                if (result.completeExceptionally(new TimeoutException(key + " timed out after " + timeoutMs + "ms"))) {
+                    running.cancel(true);
+                }
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+            result.whenComplete((v, e) -> deadline.cancel(false));
+        }
+        return result;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
\ No newline at end of file
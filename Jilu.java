@@ -1,6 +1,5 @@
 package com.example.newland.car;
 
-import android.content.Intent;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.util.Log;
@@ -9,7 +8,6 @@ import android.widget.ArrayAdapter;
 import android.widget.ListView;
 import android.widget.Spinner;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.List;
 
@@ -17,12 +15,12 @@ public class Jilu extends AppCompatActivity {
 
     private ListView listView;
     private Spinner spinner;
-    private Sql sql = new Sql(this);
-    private SimpleDateFormat format2 = new SimpleDateFormat("yyyyMMddHHmmss");
+    private Sql sql;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        sql = Sql.get(this);
         setContentView(R.layout.activity_jilu);
         listView = findViewById(R.id.lisss);
         spinner = findViewById(R.id.sppp);
@@ -34,16 +32,16 @@ public class Jilu extends AppCompatActivity {
 
     public void to24(View view) {
         Calendar calendar = Calendar.getInstance();
-        String off = format2.format(calendar.getTime());
+        long off = calendar.getTimeInMillis();
         calendar.add(Calendar.HOUR, -24);
-        setListView(sql.querytime(format2.format(calendar.getTime()), off));
+        setListView(sql.querytime(calendar.getTimeInMillis(), off));
     }
 
     public void to30(View view) {
         Calendar calendar = Calendar.getInstance();
-        String off = format2.format(calendar.getTime());
+        long off = calendar.getTimeInMillis();
         calendar.add(Calendar.DAY_OF_MONTH, -30);
-        setListView(sql.querytime(format2.format(calendar.getTime()), off));
+        setListView(sql.querytime(calendar.getTimeInMillis(), off));
     }
 
     public void quer(View view) {
@@ -58,6 +56,6 @@ public class Jilu extends AppCompatActivity {
     }
 
     public void backl(View view) {
-        startActivity(new Intent(this, MainActivity.class));
+        startActivity(MainActivity.home(this));
     }
 }
\ No newline at end of file
@@ -1,9 +1,8 @@
 package com.example.newland.car;
 
-import android.content.Intent;
-import android.content.SharedPreferences;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -11,28 +10,23 @@ import android.widget.TextView;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 public class Jin extends AppCompatActivity {
 
     private TextView red, green, carid, ontime, bian, outtime, monry, tv_show;
     private ImageView imageView;
-    private String[] id1 = {"E2 80 68 94 00 00 50 22 44 B2 B8 8B", "苏A123456"};
-    private String[] id2 = {"E2 80 68 94 00 00 40 15 9A 33 3D 5E", "苏C123456"};
+    private TagRegistry tags;
+    private SpaceAllocator spaces;
     private SimpleDateFormat format2 = new SimpleDateFormat("yyyyMMddHHmmss");
-    private String uhf;
-    private SharedPreferences preferences;
-    private SharedPreferences.Editor editor;
-    private ScheduledExecutorService service = Executors.newScheduledThreadPool(1);
-    private Sql sql = new Sql(this);
+    private OccupancyStore occupancy;
+    private RecordQueue records;
 
     private static boolean isFirstLaunch = true;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        records = RecordQueue.get(this);
         setContentView(R.layout.activity_jin);
 
         red = findViewById(R.id.red);
@@ -45,91 +39,167 @@ public class Jin extends AppCompatActivity {
         monry = findViewById(R.id.money);
         tv_show = findViewById(R.id.textView5);
 
-        preferences = getSharedPreferences("data", MODE_PRIVATE);
-        editor = preferences.edit();
+        tags = TagRegistry.get(this);
+        occupancy = OccupancyStore.get(this);
+        spaces = SpaceAllocator.get(this);
 
         if (isFirstLaunch) {
             chushi();
             isFirstLaunch = false;
         }
-        get();
     }
 
-    private void get() {
-        service.scheduleAtFixedRate(() -> {
-            uhf = Http.get("uhf");
-            String ji = Http.get("m_limit");
-            runOnUiThread(() -> {
-                if ("1".equals(ji)) chushi();
-            });
-        }, 0, 5, TimeUnit.SECONDS);
+    @Override
+    protected void onStart() {
+        super.onStart();
+        UhfDebouncer.get().addListener(visits);
+        DeviceWatcher.get().observe(listener, "uhf", "m_limit");
     }
 
-    public void jinchang(View view) {
-        if (id1[0].equals(uhf)) jintuu(id1, "A1");
-        else if (id2[0].equals(uhf)) jintuu(id2, "A2");
+    @Override
+    protected void onStop() {
+        DeviceWatcher.get().remove(listener);
+        UhfDebouncer.get().removeListener(visits);
+        super.onStop();
     }
 
-    private void jintuu(String[] id, String bianNum) {
-        carid.setText(id[1]);
-        ontime.setText(format2.format(new Date()));
-        bian.setText(bianNum);
-        tv_show.setText("欢迎" + id[1] + "车主，请到" + bianNum + "车位停车！");
+    private final DeviceWatcher.Listener listener = (key, value, time) -> {
+        if ("uhf".equals(key)) {
+            UhfDebouncer.get().onRead(value, time);
+        } else if ("1".equals(value)) {
+            runOnUiThread(this::chushi);
+        }
+    };
 
-        editor.putString(bianNum, "1");
-        editor.putLong(bianNum + "_startTime", System.currentTimeMillis());
-        editor.apply();
+    private final UhfDebouncer.Listener visits = new UhfDebouncer.Listener() {
+        @Override
+        public void onArrival(UhfDebouncer.Visit visit) {
+            Log.d("TAG", "arrival: " + visit.epc);
+        }
+
+        @Override
+        public void onDeparture(UhfDebouncer.Visit visit) {
+            Log.d("TAG", "departure: " + visit.epc + " " + (visit.getLastSeen() - visit.firstSeen) + "ms");
+        }
+    };
+
+    // 同一次到访重复点击不会重复抬杆、也不会重置计费起点
+    public void jinchang(View view) {
+        UhfDebouncer.Visit visit = UhfDebouncer.get().current(System.currentTimeMillis());
+        if (visit == null || visit.entered) return;
+        TagRegistry.Tag tag = tags.find(visit.epc);
+        if (tag == null) return;
+
+        // 上次出场漏记或对出场车误按进场：车还挂在原车位上，不再分配第二个车位
+        OccupancyStore.Entry parked = occupancy.find(tag.epc);
+        if (parked != null) {
+            tv_show.setText(tag.plate + "车主已停在" + parked.space + "车位，请先办理出场！");
+            return;
+        }
 
-        Http.post("m_pushrod_putt", "0");
-        Http.post("m_multi_red", "0");
-        Http.post("m_pushrod_back", "1");
-        Http.post("m_pushrod_putt", "1");
+        // 有固定车位且空着就用固定车位，否则分配离入口最近的空位
+        String bianNum = tag.space.isEmpty() || !spaces.take(tag.space)
+                ? spaces.allocateNear(Lot.ENTRANCE_X, Lot.ENTRANCE_Y) : tag.space;
+        if (bianNum == null) {
+            tv_show.setText(tag.plate + "车主，车位已满！");
+            return;
+        }
+        // 抬杆命令在途期间挡住重复点击；失败时清掉，允许重试
+        visit.entered = true;
+        jintuu(visit, tag, bianNum);
+    }
 
-        red.setBackgroundResource(R.drawable.dark1);
-        green.setBackgroundResource(R.drawable.green1);
-        imageView.setBackgroundResource(R.drawable.pic_cartoon_gate_2);
+    // 道闸确认抬起后才登记入场、切换界面；失败时道闸被补偿批次放回安全状态，车位退回
+    private void jintuu(UhfDebouncer.Visit visit, TagRegistry.Tag tag, String bianNum) {
+        tv_show.setText(tag.plate + "车主，正在抬杆…");
+        long readAt = visit.firstSeen;
+        new CommandBatch()
+                .post("m_pushrod_putt", "0")
+                .post("m_multi_red", "0")
+                .post("m_pushrod_back", "1")
+                .post("m_pushrod_putt", "1")
+                .onFailure(reset())
+                .submit()
+                .thenAccept(result -> {
+                    Log.d("TAG", "jintuu: " + result
+                            + ", tag read -> barrier " + (result.timeOf("m_pushrod_back") - readAt) + "ms");
+                    runOnUiThread(() -> {
+                        if (!result.isOk()) {
+                            visit.entered = false;
+                            spaces.release(bianNum);
+                            tv_show.setText(tag.plate + "车主，道闸故障，请重新进场！");
+                            return;
+                        }
+                        boolean saved = occupancy.enter(bianNum, tag.epc, tag.plate, tag.vehicleClass, visit.firstSeen);
+                        carid.setText(tag.plate);
+                        ontime.setText(format2.format(new Date(visit.firstSeen)));
+                        bian.setText(bianNum);
+                        tv_show.setText(saved ? "欢迎" + tag.plate + "车主，请到" + bianNum + "车位停车！"
+                                : tag.plate + "入场登记失败，请联系管理员！");
+                        red.setBackgroundResource(R.drawable.dark1);
+                        green.setBackgroundResource(R.drawable.green1);
+                        imageView.setBackgroundResource(R.drawable.pic_cartoon_gate_2);
+                    });
+                });
     }
 
     public void chuchang(View view) {
-        chu();
-        String name = id1[0].equals(uhf) ? id1[1] : (id2[0].equals(uhf) ? id2[1] : "");
-        String bianNum = id1[0].equals(uhf) ? "A1" : "A2";
-
-        if (!name.isEmpty()) {
-            tv_show.setText(name + "车主，一路顺风！");
-            editor.putString(bianNum, "0");
-            editor.apply();
+        UhfDebouncer.Visit visit = UhfDebouncer.get().current(System.currentTimeMillis());
+        if (visit != null && visit.exited) return;
+        TagRegistry.Tag tag = visit == null ? null : tags.find(visit.epc);
+        OccupancyStore.Entry entry = tag == null ? null : occupancy.find(tag.epc);
+        // 没有入场记录就不计费也不释放车位：界面上的车位可能是另一辆车的
+        if (entry == null) {
+            if (tag != null) tv_show.setText(tag.plate + "车主，未找到入场记录，请联系管理员！");
+            return;
+        }
+        if (!chu(entry)) {
+            tv_show.setText(entry.plate + "车主，计费记录保存失败，请重试！");
+            return;
+        }
+        // 记录已经落盘，不论车位能否释放都不能再计一次费
+        visit.exited = true;
+        if (occupancy.leave(entry.space, System.currentTimeMillis())) {
+            spaces.release(entry.space);
+            tv_show.setText(entry.plate + "车主，一路顺风！");
+        } else {
+            tv_show.setText(entry.plate + "车主，一路顺风！车位" + entry.space + "未能释放，请联系管理员");
         }
         imageView.setBackgroundResource(R.drawable.pic_cartoon_gate_1);
     }
 
-    private void chu() {
-        outtime.setText(format2.format(new Date()));
-        String currentBian = bian.getText().toString();
-
+    // 车牌和车位都取自占用表，Activity 重建后界面上的文本已经不可信
+    private boolean chu(OccupancyStore.Entry entry) {
         long off = System.currentTimeMillis();
-        long realStart = preferences.getLong(currentBian + "_startTime", off);
+        outtime.setText(format2.format(new Date(off)));
 
-        long min = (off - realStart) / (60 * 1000);
+        long min = (off - entry.start) / (60 * 1000);
         if (min <= 0) min = 1;
         monry.setText(String.valueOf(min));
 
-        if (id1[0].equals(uhf) || id2[0].equals(uhf)) {
-            sql.insert(carid.getText().toString(), ontime.getText().toString(),
-                    outtime.getText().toString(), currentBian,
-                    String.valueOf(min), monry.getText().toString());
-        }
+        // 只追加到日志，写库交给后台线程，出场按钮不再等 SQLite
+        return records.enqueue(new Sql.Record(entry.plate, entry.start, off, entry.space, min * 60, min * 100));
     }
 
     public void back(View view) {
-        startActivity(new Intent(this, MainActivity.class));
+        startActivity(MainActivity.home(this));
+    }
+
+    // 道闸的安全状态：落杆、红灯
+    private static CommandBatch reset() {
+        return new CommandBatch()
+                .post("m_pushrod_back", "0")
+                .post("m_steady_green", "0")
+                .post("m_pushrod_putt", "1")
+                .post("m_multi_red", "1");
     }
 
+    // 地感触发的复位必须真正发出去，不能因为影子状态认为道闸已落下而被省掉
     private void chushi() {
-        Http.post("m_pushrod_back", "0");
-        Http.post("m_steady_green", "0");
-        Http.post("m_pushrod_putt", "1");
-        Http.post("m_multi_red", "1");
+        reset()
+                .force()
+                .submit()
+                .thenAccept(result -> Log.d("TAG", "chushi: " + result));
 
         red.setBackgroundResource(R.drawable.red1);
         green.setBackgroundResource(R.drawable.dark1);
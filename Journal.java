@@ -0,0 +1,178 @@
+package com.example.newland.car;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+// 追加式日志文件：每行末尾附 "\t*" 加 8 位十六进制 CRC32，写入后 fsync。
+// 回放时先把文件截到最后一个换行，断电时写了一半的行不会和下一次追加粘成一行；
+// 校验不过的行跳过，没有校验字段的旧格式行照常读入。需要手工编辑的文件可以关掉校验字段，
+// 这时没法区分写了一半的行和手工编辑时漏掉的换行，最后一行照常读入并补上换行；行尾的 '\r' 都会去掉。
+// 回放时文件读不出来，就不知道里面已有哪些行，之后的追加和重写都会拒绝，以免覆盖或重复已有内容。
+// 非线程安全，由调用方加锁
+public class Journal {
+
+    public interface Reader {
+        void line(String line);
+    }
+
+    private static final String MARK = "\t*";
+
+    private final File file;
+    private final boolean checksum;
+    private long length;
+    private int lines;
+    private boolean broken;
+
+    public Journal(File file) {
+        this(file, true);
+    }
+
+    public Journal(File file, boolean checksum) {
+        this.file = file;
+        this.checksum = checksum;
+        this.length = file.length();
+    }
+
+    // 文件中的行数，含已失效的行，用来判断是否该压缩
+    public int getLineCount() {
+        return lines;
+    }
+
+    // 回放失败后不能再写
+    public boolean isBroken() {
+        return broken;
+    }
+
+    // 按顺序交给 reader 每一条完好的行（不含校验字段）；文件读不出来返回 false
+    public boolean replay(Reader reader) {
+        lines = 0;
+        length = 0;
+        broken = false;
+        if (!file.exists()) return true;
+        byte[] data;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            data = new byte[(int) in.length()];
+            in.readFully(data);
+        } catch (IOException e) {
+            e.printStackTrace();
+            length = file.length();
+            broken = true;
+            return false;
+        }
+
+        int end = data.length;
+        if (checksum) {
+            while (end > 0 && data[end - 1] != '\n') end--;
+            if (end < data.length) truncate(end);
+            length = end;
+        } else {
+            length = end;
+            if (end > 0 && data[end - 1] != '\n' && terminate()) length++;
+        }
+
+        int start = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i < end ? data[i] != '\n' : start == end) continue;
+            int to = i > start && data[i - 1] == '\r' ? i - 1 : i;
+            String raw = new String(data, start, to - start, StandardCharsets.UTF_8);
+            String line = checksum ? check(raw) : raw;
+            start = i + 1;
+            lines++;
+            if (line != null) reader.line(line);
+        }
+        return true;
+    }
+
+    // 追加一行并 fsync；写失败时把文件截回写之前的长度，不留半行
+    public boolean append(String line) {
+        if (broken) return false;
+        byte[] b = encode(line);
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(b);
+            out.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (file.length() > length) truncate(length);
+            return false;
+        }
+        length += b.length;
+        lines++;
+        return true;
+    }
+
+    // 用给定内容整体替换文件：先写临时文件再改名，中途断电不会丢掉原文件
+    public boolean rewrite(Iterable<String> content) {
+        if (broken) return false;
+        File tmp = new File(file.getPath() + ".tmp");
+        long size = 0;
+        int count = 0;
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            for (String line : content) {
+                byte[] b = encode(line);
+                out.write(b);
+                size += b.length;
+                count++;
+            }
+            out.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+            tmp.delete();
+            return false;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            return false;
+        }
+        length = size;
+        lines = count;
+        return true;
+    }
+
+    // 给没有换行结尾的文件补上换行，下一次追加不会和最后一行粘在一起
+    private boolean terminate() {
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write('\n');
+            out.getFD().sync();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void truncate(long size) {
+        try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+            f.setLength(size);
+            f.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private byte[] encode(String line) {
+        String text = checksum ? line + MARK + String.format("%08x", crc(line)) : line;
+        return (text + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 返回去掉校验字段的内容，校验不过返回 null
+    private static String check(String raw) {
+        int p = raw.lastIndexOf(MARK);
+        if (p < 0 || raw.length() - p != MARK.length() + 8) return raw;
+        String line = raw.substring(0, p);
+        try {
+            return Long.parseLong(raw.substring(p + MARK.length()), 16) == crc(line) ? line : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long crc(String line) {
+        CRC32 crc = new CRC32();
+        crc.update(line.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
\ No newline at end of file
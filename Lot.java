@@ -0,0 +1,77 @@
+package com.example.newland.car;
+
+// 车场布局：每个区所在楼层、车位数和坐标。车位号 = 区名 + 序号（从 1 开始）。
+// 每个区的车位从区起点沿 x 方向排成一排，坐标单位为米
+public class Lot {
+
+    public static final String[] ZONES = {"A"};
+    public static final String[] LEVELS = {"L1"};
+    public static final int[] SIZES = {6};
+    public static final float[] ORIGIN_X = {2};
+    public static final float[] ORIGIN_Y = {5};
+    public static final float SPACING = 2.5f;
+
+    public static final float ENTRANCE_X = 0;
+    public static final float ENTRANCE_Y = 0;
+
+    // 按 ZONES 顺序排列的全部车位坐标：[0] 为 x，[1] 为 y
+    public static float[][] coordinates() {
+        float[] xs = new float[capacity()], ys = new float[capacity()];
+        int n = 0;
+        for (int z = 0; z < ZONES.length; z++) {
+            for (int i = 0; i < SIZES[z]; i++, n++) {
+                xs[n] = ORIGIN_X[z] + i * SPACING;
+                ys[n] = ORIGIN_Y[z];
+            }
+        }
+        return new float[][]{xs, ys};
+    }
+
+    public static int capacity() {
+        int n = 0;
+        for (int size : SIZES) n += size;
+        return n;
+    }
+
+    public static int capacity(String zone) {
+        int i = indexOf(zone);
+        return i < 0 ? 0 : SIZES[i];
+    }
+
+    public static String zoneOf(String space) {
+        String prefix = prefixOf(space);
+        return indexOf(prefix) < 0 ? null : prefix;
+    }
+
+    // 车位号第一个数字之前的部分，不检查区是否存在；space 为 null 时返回 null
+    public static String prefixOf(String space) {
+        if (space == null) return null;
+        int p = 0;
+        while (p < space.length() && !Character.isDigit(space.charAt(p))) p++;
+        return space.substring(0, p);
+    }
+
+    // 车位号里区名之后的序号（从 1 开始），解析不出来返回 -1；不检查是否超出该区车位数
+    public static int numberOf(String space) {
+        String prefix = prefixOf(space);
+        if (prefix == null) return -1;
+        try {
+            int n = Integer.parseInt(space.substring(prefix.length()));
+            return n > 0 ? n : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static String levelOf(String zone) {
+        int i = indexOf(zone);
+        return i < 0 ? null : LEVELS[i];
+    }
+
+    private static int indexOf(String zone) {
+        for (int i = 0; i < ZONES.length; i++) {
+            if (ZONES[i].equals(zone)) return i;
+        }
+        return -1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.example.newland.car;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 车场层级：车场 -> 楼层 -> 区 -> 车位。车位按深度优先顺序编号，任何子树都对应一段连续编号，
+// 占用数和收入各用一棵树状数组（Fenwick）维护，子树的空位、占用率、收入查询和每次进出的更新都是 O(log n)
+public class LotTree {
+
+    public static class Node {
+        public final String name;
+        public final Node parent;
+        public final List<Node> children = new ArrayList<>();
+        int from, to;
+
+        Node(String name, Node parent) {
+            this.name = name;
+            this.parent = parent;
+            if (parent != null) parent.children.add(this);
+        }
+
+        public int size() {
+            return to - from;
+        }
+    }
+
+    private static class Fenwick {
+        final long[] tree;
+
+        Fenwick(int n) {
+            tree = new long[n + 1];
+        }
+
+        void add(int i, long delta) {
+            for (i++; i < tree.length; i += i & -i) tree[i] += delta;
+        }
+
+        long prefix(int n) {
+            long sum = 0;
+            for (; n > 0; n -= n & -n) sum += tree[n];
+            return sum;
+        }
+
+        long range(int from, int to) {
+            return prefix(to) - prefix(from);
+        }
+    }
+
+    private final Node site;
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Map<String, Integer> zoneStart = new HashMap<>();
+    private final Fenwick occupied, revenue;
+    private final boolean[] taken;
+
+    // 按 Lot 的布局建树：同一楼层的区排在一起
+    public static LotTree fromLot() {
+        return new LotTree("site", Lot.LEVELS, Lot.ZONES, Lot.SIZES);
+    }
+
+    public LotTree(String siteName, String[] levels, String[] zones, int[] sizes) {
+        site = new Node(siteName, null);
+        nodes.put(siteName, site);
+        int next = 0;
+        List<String> order = new ArrayList<>();
+        for (String level : levels) {
+            if (!order.contains(level)) order.add(level);
+        }
+        for (String level : order) {
+            Node l = new Node(level, site);
+            nodes.put(level, l);
+            l.from = next;
+            for (int i = 0; i < zones.length; i++) {
+                if (!levels[i].equals(level)) continue;
+                Node z = new Node(zones[i], l);
+                nodes.put(zones[i], z);
+                zoneStart.put(zones[i], next);
+                z.from = next;
+                next += sizes[i];
+                z.to = next;
+            }
+            l.to = next;
+        }
+        site.to = next;
+        occupied = new Fenwick(next);
+        revenue = new Fenwick(next);
+        taken = new boolean[next];
+    }
+
+    public Node getSite() {
+        return site;
+    }
+
+    // 按名字找楼层或区，车场本身用构造时给的名字
+    public Node node(String name) {
+        return nodes.get(name);
+    }
+
+    public List<Node> children(Node node) {
+        return Collections.unmodifiableList(node.children);
+    }
+
+    public synchronized boolean enter(String space) {
+        int i = ordinal(space);
+        if (i < 0 || taken[i]) return false;
+        taken[i] = true;
+        occupied.add(i, 1);
+        return true;
+    }
+
+    public synchronized boolean leave(String space) {
+        int i = ordinal(space);
+        if (i < 0 || !taken[i]) return false;
+        taken[i] = false;
+        occupied.add(i, -1);
+        return true;
+    }
+
+    public synchronized void addRevenue(String space, long cents) {
+        int i = ordinal(space);
+        if (i >= 0) revenue.add(i, cents);
+    }
+
+    public synchronized int occupied(Node node) {
+        return (int) occupied.range(node.from, node.to);
+    }
+
+    public synchronized int available(Node node) {
+        return node.size() - occupied(node);
+    }
+
+    public synchronized double occupancyRate(Node node) {
+        return node.size() == 0 ? 0 : (double) occupied(node) / node.size();
+    }
+
+    public synchronized long revenue(Node node) {
+        return revenue.range(node.from, node.to);
+    }
+
+    private int ordinal(String space) {
+        String zone = Lot.prefixOf(space);
+        Integer start = zone == null ? null : zoneStart.get(zone);
+        if (start == null) return -1;
+        int i = Lot.numberOf(space) - 1;
+        return i >= 0 && i < nodes.get(zone).size() ? start + i : -1;
+    }
+}
\ No newline at end of file
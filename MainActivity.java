@@ -1,5 +1,6 @@
 package com.example.newland.car;
 
+import android.content.Context;
 import android.content.Intent;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
@@ -10,13 +11,10 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 public class MainActivity extends AppCompatActivity {
-    private ScheduledExecutorService service = Executors.newScheduledThreadPool(1);
     private TextView time, t, h, l;
+    private Timer timer = new Timer();
     private SimpleDateFormat format1 = new SimpleDateFormat("HH:mm:ss");
     private boolean is = true;
 
@@ -30,7 +28,7 @@ public class MainActivity extends AppCompatActivity {
         h = findViewById(R.id.h);
         l = findViewById(R.id.l);
 
-        new Timer().schedule(new TimerTask() {
+        timer.schedule(new TimerTask() {
             @Override
             public void run() {
                 runOnUiThread(() -> time.setText(format1.format(new Date())));
@@ -41,26 +39,45 @@ public class MainActivity extends AppCompatActivity {
             chushi();
             is = false;
         }
-        get();
     }
 
-    private void get() {
-        service.scheduleAtFixedRate(() -> {
-            String uhf = Http.get("uhf");
-            String ll = Http.get("m_light");
-            String te = Http.get("m_temp");
-            String hh = Http.get("m_hum");
-
-            runOnUiThread(() -> {
-                try {
-                    t.setText(String.format("%.0f", Float.parseFloat(te)));
-                    h.setText(String.format("%.0f", Float.parseFloat(hh)));
-                    l.setText(String.format("%.0f", Float.parseFloat(ll)));
-                } catch (NumberFormatException e) {
-                    e.printStackTrace();
-                }
-            });
-        }, 0, 5, TimeUnit.SECONDS);
+    @Override
+    protected void onStart() {
+        super.onStart();
+        DeviceWatcher.get().observe(listener, "m_light", "m_temp", "m_hum");
+    }
+
+    @Override
+    protected void onStop() {
+        DeviceWatcher.get().remove(listener);
+        super.onStop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        timer.cancel();
+        super.onDestroy();
+    }
+
+    private final SensorReading reading = new SensorReading();
+
+    private final DeviceWatcher.Listener listener = (key, value, at) -> {
+        int v;
+        synchronized (reading) {
+            reading.unit = SensorReading.unitOf(key);
+            if (!reading.parse(value, at).isGood()) return;
+            v = reading.rounded();
+        }
+        runOnUiThread(() -> {
+            TextView view = "m_temp".equals(key) ? t : ("m_hum".equals(key) ? h : l);
+            view.setText(String.valueOf(v));
+        });
+    };
+
+    // 返回已有的主界面实例，而不是每次新建一个叠在栈上
+    public static Intent home(Context context) {
+        return new Intent(context, MainActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
     }
 
     public void jinchu(View view) {
@@ -76,9 +93,11 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void chushi() {
-        Http.post("m_pushrod_back", "0");
-        Http.post("m_steady_green", "0");
-        Http.post("m_pushrod_putt", "1");
-        Http.post("m_multi_red", "1");
+        new CommandBatch()
+                .post("m_pushrod_back", "0")
+                .post("m_steady_green", "0")
+                .post("m_pushrod_putt", "1")
+                .post("m_multi_red", "1")
+                .submit();
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.example.newland.car;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 按区、楼层、车型增量维护的占用计数，每次进出只改几个计数，读取是 O(1)。
+// 计数真正变化时才通知监听者，界面只在这时重绘
+public class OccupancyCounters {
+
+    public interface Listener {
+        void onChange(OccupancyCounters counters);
+    }
+
+    private final Map<String, Integer> zones = new HashMap<>();
+    private final Map<String, Integer> levels = new HashMap<>();
+    private final Map<String, Integer> classes = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private int occupied;
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        listener.onChange(this);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void entered(OccupancyStore.Entry e) {
+        if (update(e, 1)) fire();
+    }
+
+    void left(OccupancyStore.Entry e) {
+        if (update(e, -1)) fire();
+    }
+
+    private synchronized boolean update(OccupancyStore.Entry e, int delta) {
+        String zone = Lot.zoneOf(e.space);
+        if (zone == null) return false;
+        occupied += delta;
+        add(zones, zone, delta);
+        add(levels, Lot.levelOf(zone), delta);
+        add(classes, e.vehicleClass, delta);
+        return true;
+    }
+
+    private static void add(Map<String, Integer> map, String key, int delta) {
+        Integer n = map.get(key);
+        map.put(key, (n == null ? 0 : n) + delta);
+    }
+
+    private void fire() {
+        for (Listener l : listeners) l.onChange(this);
+    }
+
+    public synchronized int getOccupied() {
+        return occupied;
+    }
+
+    public synchronized int getFree() {
+        return Lot.capacity() - occupied;
+    }
+
+    public synchronized int getOccupiedInZone(String zone) {
+        Integer n = zones.get(zone);
+        return n == null ? 0 : n;
+    }
+
+    public synchronized int getFreeInZone(String zone) {
+        return Lot.capacity(zone) - getOccupiedInZone(zone);
+    }
+
+    public synchronized int getOccupiedOnLevel(String level) {
+        Integer n = levels.get(level);
+        return n == null ? 0 : n;
+    }
+
+    public synchronized int getFreeOnLevel(String level) {
+        int capacity = 0;
+        for (int i = 0; i < Lot.ZONES.length; i++) {
+            if (Lot.LEVELS[i].equals(level)) capacity += Lot.SIZES[i];
+        }
+        return capacity - getOccupiedOnLevel(level);
+    }
+
+    public synchronized int getOccupiedByClass(String vehicleClass) {
+        Integer n = classes.get(vehicleClass);
+        return n == null ? 0 : n;
+    }
+}
\ No newline at end of file
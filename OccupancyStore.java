@@ -0,0 +1,199 @@
+package com.example.newland.car;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 车位占用表：内存里按车位号和 EPC 各建一个哈希索引，每次进出只通过 Journal 追加一行到 occupancy.log 并 fsync，
+// 不再像 SharedPreferences 那样每次 apply() 重写整个 XML。日志过长时压缩成当前快照
+public class OccupancyStore {
+
+    public static class Entry {
+        public final String space, plate, vehicleClass;
+        public final EpcKey epc;
+        public final long start;
+
+        Entry(String space, EpcKey epc, String plate, String vehicleClass, long start) {
+            this.space = space;
+            this.epc = epc;
+            this.plate = plate;
+            this.vehicleClass = vehicleClass;
+            this.start = start;
+        }
+    }
+
+    private static final String FILE = "occupancy.log";
+    private static OccupancyStore instance;
+
+    public static synchronized OccupancyStore get(Context context) {
+        if (instance == null) {
+            File file = new File(context.getApplicationContext().getFilesDir(), FILE);
+            boolean fresh = !file.exists();
+            instance = new OccupancyStore(file);
+            if (fresh) {
+                instance.importPreferences(context.getSharedPreferences("data", Context.MODE_PRIVATE),
+                        TagRegistry.get(context));
+            }
+            RecordQueue.get(context).trackRevenue(instance.tree);
+        }
+        return instance;
+    }
+
+    private final File file;
+    private final Journal journal;
+    private final Map<String, Entry> bySpace = new HashMap<>();
+    private final Map<EpcKey, Entry> byEpc = new HashMap<>();
+    private final OccupancyCounters counters = new OccupancyCounters();
+    private final LotTree tree = LotTree.fromLot();
+    private Map<String, Entry> snapshot;
+
+    public OccupancyStore(File file) {
+        this.file = file;
+        this.journal = new Journal(file);
+        // 读不出来时占用表为空，Journal 随后拒绝追加和压缩，不会用空表覆盖原文件
+        if (!journal.replay(this::replay)) {
+            Log.d("TAG", "occupancy log unreadable, refusing changes: " + file);
+        }
+        for (Entry e : bySpace.values()) {
+            counters.entered(e);
+            tree.enter(e.space);
+        }
+    }
+
+    // 写日志失败返回 false，内存表不变
+    public synchronized boolean enter(String space, EpcKey epc, String plate, String vehicleClass, long start) {
+        Entry entry = new Entry(space, epc, plate, vehicleClass, start);
+        if (!journal.append(line(entry))) return false;
+        Entry old = apply(entry);
+        if (old != null) counters.left(old);
+        counters.entered(bySpace.get(space));
+        tree.enter(space);
+        compactIfLong();
+        return true;
+    }
+
+    // 车位本来就空或写日志失败返回 false
+    public synchronized boolean leave(String space, long time) {
+        Entry e = bySpace.get(space);
+        if (e == null) return false;
+        if (!journal.append("OUT\t" + space + "\t" + time)) return false;
+        remove(space);
+        counters.left(e);
+        tree.leave(space);
+        compactIfLong();
+        return true;
+    }
+
+    public OccupancyCounters getCounters() {
+        return counters;
+    }
+
+    public LotTree getTree() {
+        return tree;
+    }
+
+    public synchronized Entry get(String space) {
+        return bySpace.get(space);
+    }
+
+    public synchronized Entry find(EpcKey epc) {
+        return byEpc.get(epc);
+    }
+
+    public synchronized int size() {
+        return bySpace.size();
+    }
+
+    // 只读快照：两次变化之间重复取快照不会重新复制
+    public synchronized Map<String, Entry> snapshot() {
+        if (snapshot == null) snapshot = Collections.unmodifiableMap(new LinkedHashMap<>(bySpace));
+        return snapshot;
+    }
+
+    private Entry apply(Entry e) {
+        Entry old = remove(e.space);
+        bySpace.put(e.space, e);
+        if (e.epc != null) byEpc.put(e.epc, e);
+        snapshot = null;
+        return old;
+    }
+
+    private Entry remove(String space) {
+        Entry old = bySpace.remove(space);
+        if (old != null && old.epc != null) byEpc.remove(old.epc);
+        snapshot = null;
+        return old;
+    }
+
+    private void replay(String line) {
+        String[] f = line.split("\t", -1);
+        try {
+            if ("IN".equals(f[0]) && f.length >= 5) {
+                String vehicleClass = f.length > 5 ? f[5] : "";
+                apply(new Entry(f[1], f[2].isEmpty() ? null : EpcKey.parse(f[2]), f[3], vehicleClass,
+                        Long.parseLong(f[4])));
+            } else if ("OUT".equals(f[0]) && f.length == 3) {
+                remove(f[1]);
+            }
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String line(Entry e) {
+        return "IN\t" + e.space + "\t" + (e.epc == null ? "" : e.epc) + "\t" + e.plate + "\t" + e.start + "\t" + e.vehicleClass;
+    }
+
+    // 日志过长时只保留当前占用的车位；必须在内存表更新之后调用，快照里才包含刚追加的那一行
+    private void compactIfLong() {
+        if (journal.getLineCount() <= 4 * bySpace.size() + 64) return;
+        List<String> lines = new ArrayList<>(bySpace.size());
+        for (Entry e : bySpace.values()) lines.add(line(e));
+        journal.rewrite(lines);
+    }
+
+    // 旧版本把占用状态存在 "data" 里：车位号 -> "1"，车位号_startTime -> 入场时间，space_EPC -> 车位号
+    synchronized void importPreferences(SharedPreferences preferences, TagRegistry tags) {
+        Map<String, EpcKey> owners = new HashMap<>();
+        for (Map.Entry<String, ?> e : preferences.getAll().entrySet()) {
+            if (!e.getKey().startsWith("space_") || !(e.getValue() instanceof String)) continue;
+            try {
+                owners.put((String) e.getValue(), EpcKey.parse(e.getKey().substring(6)));
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        SharedPreferences.Editor editor = preferences.edit();
+        for (Map.Entry<String, ?> e : preferences.getAll().entrySet()) {
+            String key = e.getKey();
+            if (key.startsWith("space_")) {
+                editor.remove(key);
+            } else if (key.endsWith("_startTime")) {
+                editor.remove(key);
+            } else if ("1".equals(e.getValue()) || "0".equals(e.getValue())) {
+                if ("1".equals(e.getValue())) {
+                    long start = preferences.getLong(key + "_startTime", System.currentTimeMillis());
+                    EpcKey epc = owners.get(key);
+                    TagRegistry.Tag tag = epc == null ? null : tags.find(epc.toString());
+                    enter(key, epc, tag == null ? "" : tag.plate, tag == null ? "" : tag.vehicleClass, start);
+                }
+                editor.remove(key);
+            }
+        }
+        try {
+            if (!file.exists()) file.createNewFile();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        editor.apply();
+    }
+}
\ No newline at end of file
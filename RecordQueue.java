@@ -0,0 +1,180 @@
+package com.example.newland.car;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 停车记录的后写队列：enqueue() 只把记录带序号通过 Journal 追加到 records.journal 并 fsync，立即返回；
+// 这一次小写入留在调用线程上，它是记录落盘的确认点。SQLite 的事务和索引更新都交给后台线程：
+// 攒一小批后用 Sql.insertJournal 写库，记录和已落库序号在同一事务里提交。
+// 进程崩溃后重放日志，序号不大于已落库序号的行直接跳过，既不丢也不重复
+public class RecordQueue {
+
+    public static final int MAX_BATCH = 500;
+    private static final long FLUSH_DELAY_MS = 200;
+    private static final long RETRY_MS = 1000;
+    private static final String FILE = "records.journal";
+    private static RecordQueue instance;
+
+    public static synchronized RecordQueue get(Context context) {
+        if (instance == null) {
+            instance = new RecordQueue(new File(context.getApplicationContext().getFilesDir(), FILE), Sql.get(context));
+        }
+        return instance;
+    }
+
+    private final Journal journal;
+    private final Sql sql;
+    private final TreeMap<Long, Sql.Record> pending = new TreeMap<>();
+    // 写库并出队期间持有，保证统计收入时不会把同一条记录算两次
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService writer =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "record-writer"));
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private long lastSeq;
+    private boolean scheduled;
+    private LotTree revenueTree;
+
+    RecordQueue(File file, Sql sql) {
+        this.journal = new Journal(file);
+        this.sql = sql;
+        long flushed = sql.getFlushedSeq();
+        lastSeq = flushed;
+        // 读不出来时不知道日志里最大的序号，Journal 随后拒绝追加，enqueue() 全部返回 false
+        if (!journal.replay(line -> replay(line, flushed))) {
+            Log.d("TAG", "record journal unreadable, refusing new records: " + file);
+        }
+        if (!pending.isEmpty()) schedule(0);
+    }
+
+    // 返回 false 表示记录没能落盘，调用方应当提示重试；失败占用的序号不再复用
+    public synchronized boolean enqueue(Sql.Record r) {
+        long seq = ++lastSeq;
+        if (!journal.append(line(seq, r))) return false;
+        pending.put(seq, r);
+        if (revenueTree != null) revenueTree.addRevenue(r.bian, r.money);
+        schedule(FLUSH_DELAY_MS);
+        return true;
+    }
+
+    // 在写库线程上把已落库的收入加上队列里尚未写库的部分（分）灌进 tree，之后每条新记录由 enqueue() 计入。
+    // 按车位汇总要扫全表，千万行时要几秒，不能放在 Activity 启动的主线程上
+    public void trackRevenue(LotTree tree) {
+        writer.execute(() -> {
+            synchronized (flushLock) {
+                Map<String, Long> map = sql.revenueBySpace();
+                synchronized (this) {
+                    for (Sql.Record r : pending.values()) map.merge(r.bian, r.money, Long::sum);
+                    for (Map.Entry<String, Long> e : map.entrySet()) tree.addRevenue(e.getKey(), e.getValue());
+                    revenueTree = tree;
+                }
+            }
+        });
+    }
+
+    public synchronized int getDepth() {
+        return pending.size();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public double getAverageFlushMillis() {
+        long n = flushes.get();
+        return n == 0 ? 0 : flushNanos.get() / 1e6 / n;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1e6;
+    }
+
+    private synchronized void schedule(long delay) {
+        if (scheduled) return;
+        scheduled = true;
+        writer.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        List<Sql.Record> batch;
+        long seq;
+        synchronized (this) {
+            scheduled = false;
+            if (pending.isEmpty()) return;
+            batch = new ArrayList<>(Math.min(pending.size(), MAX_BATCH));
+            seq = 0;
+            for (Map.Entry<Long, Sql.Record> e : pending.entrySet()) {
+                if (batch.size() == MAX_BATCH) break;
+                batch.add(e.getValue());
+                seq = e.getKey();
+            }
+        }
+
+        long start = System.nanoTime();
+        synchronized (flushLock) {
+            try {
+                sql.insertJournal(batch, seq);
+            } catch (RuntimeException e) {
+                // 整批回滚，日志还在，稍后重试
+                e.printStackTrace();
+                failures.incrementAndGet();
+                schedule(RETRY_MS);
+                return;
+            }
+            synchronized (this) {
+                pending.headMap(seq, true).clear();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        flushes.incrementAndGet();
+        flushNanos.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+
+        synchronized (this) {
+            if (journal.getLineCount() > pending.size() + 2 * MAX_BATCH) compact();
+            if (!pending.isEmpty()) schedule(0);
+        }
+    }
+
+    private void replay(String line, long flushed) {
+        String[] f = line.split("\t", -1);
+        if (f.length != 7) return;
+        try {
+            long seq = Long.parseLong(f[0]);
+            lastSeq = Math.max(lastSeq, seq);
+            if (seq <= flushed) return;
+            pending.put(seq, new Sql.Record(f[1], Long.parseLong(f[2]), Long.parseLong(f[3]), f[4],
+                    Long.parseLong(f[5]), Long.parseLong(f[6])));
+        } catch (NumberFormatException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String line(long seq, Sql.Record r) {
+        return seq + "\t" + (r.carid == null ? "" : r.carid) + "\t" + r.ontime + "\t" + r.offtime
+                + "\t" + (r.bian == null ? "" : r.bian) + "\t" + r.seconds + "\t" + r.money;
+    }
+
+    // 只保留尚未落库的行
+    private void compact() {
+        List<String> lines = new ArrayList<>(pending.size());
+        for (Map.Entry<Long, Sql.Record> e : pending.entrySet()) lines.add(line(e.getKey(), e.getValue()));
+        journal.rewrite(lines);
+    }
+}
\ No newline at end of file
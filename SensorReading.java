@@ -0,0 +1,112 @@
+package com.example.newland.car;
+
+import java.nio.ByteBuffer;
+
+// 传感器读数：数值、单位、设备时间戳、质量标记。可重复使用同一个对象解码，不产生垃圾也不抛异常。
+// 二进制格式固定 14 字节：unit(1) quality(1) value(float 4) time(long 8)
+public class SensorReading {
+
+    public static final int SIZE = 14;
+
+    public static final byte UNIT_NONE = 0;
+    public static final byte UNIT_CELSIUS = 1;
+    public static final byte UNIT_PERCENT_RH = 2;
+    public static final byte UNIT_LUX = 3;
+
+    public static final byte GOOD = 0;
+    public static final byte BAD = 1;
+    public static final byte MISSING = 2;
+
+    private static final float[] POW10 = {1f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f};
+
+    public float value;
+    public byte unit;
+    public byte quality = MISSING;
+    public long time;
+
+    public SensorReading() {
+    }
+
+    public SensorReading(byte unit) {
+        this.unit = unit;
+    }
+
+    public boolean isGood() {
+        return quality == GOOD;
+    }
+
+    public static byte unitOf(String key) {
+        switch (key) {
+            case "m_temp":
+                return UNIT_CELSIUS;
+            case "m_hum":
+                return UNIT_PERCENT_RH;
+            case "m_light":
+                return UNIT_LUX;
+            default:
+                return UNIT_NONE;
+        }
+    }
+
+    // 解析网关返回的文本数值，格式不对时置为 BAD 而不是抛 NumberFormatException
+    public SensorReading parse(CharSequence text, long time) {
+        this.time = time;
+        if (text == null) {
+            quality = MISSING;
+            return this;
+        }
+        int i = 0, end = text.length();
+        while (i < end && text.charAt(i) <= ' ') i++;
+        while (end > i && text.charAt(end - 1) <= ' ') end--;
+
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0, scale = -1;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c >= '0' && c <= '9' && digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) scale++;
+            } else {
+                break;
+            }
+        }
+        if (i != end || digits == 0 || scale >= POW10.length) {
+            quality = BAD;
+            return this;
+        }
+        float v = scale > 0 ? mantissa / POW10[scale] : mantissa;
+        value = negative ? -v : v;
+        quality = GOOD;
+        return this;
+    }
+
+    public void encode(ByteBuffer out) {
+        out.put(unit).put(quality).putFloat(value).putLong(time);
+    }
+
+    public SensorReading decode(ByteBuffer in) {
+        if (in.remaining() < SIZE) {
+            quality = MISSING;
+            return this;
+        }
+        unit = in.get();
+        quality = in.get();
+        value = in.getFloat();
+        time = in.getLong();
+        if (quality == GOOD && Float.isNaN(value)) quality = BAD;
+        return this;
+    }
+
+    // 取整显示，替代每次 String.format("%.0f")
+    public int rounded() {
+        return Math.round(value);
+    }
+}
\ No newline at end of file
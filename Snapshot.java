@@ -0,0 +1,41 @@
+package com.example.newland.car;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class Snapshot {
+
+    private final Map<String, String> values;
+    private final long time;
+
+    public Snapshot(Map<String, String> values, long time) {
+        this.values = Collections.unmodifiableMap(values);
+        this.time = time;
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public boolean is(String key, String value) {
+        return value.equals(values.get(key));
+    }
+
+    public float getFloat(String key, float def) {
+        String v = values.get(key);
+        if (v == null) return def;
+        try {
+            return Float.parseFloat(v.trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public Map<String, String> asMap() {
+        return values;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+package com.example.newland.car;
+
+import android.content.Context;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// 车位分配：每个区一张空闲位图（1 = 空闲），外加一层摘要位图记录哪些 64 位字里还有空位，
+// 找第一个空位只需两次 numberOfTrailingZeros。有坐标索引时按离入口的实际距离分配最近的空位。
+// 固定车位从空闲位图里拿掉，只能由持有人通过 take() 占用，不会分给临时车。
+// 多车道并发进出时加锁保证一致
+public class SpaceAllocator {
+
+    private static class Zone {
+        final String name;
+        final int size;
+        int start;
+        final long[] free;
+        final long[] summary;
+        int freeCount;
+
+        Zone(String name, int size) {
+            this.name = name;
+            this.size = size;
+            free = new long[(size + 63) >>> 6];
+            summary = new long[(free.length + 63) >>> 6];
+            for (int i = 0; i < size; i++) set(i, true);
+        }
+
+        void set(int i, boolean isFree) {
+            int w = i >>> 6;
+            if (isFree) {
+                if ((free[w] & (1L << i)) == 0) freeCount++;
+                free[w] |= 1L << i;
+                summary[w >>> 6] |= 1L << w;
+            } else {
+                if ((free[w] & (1L << i)) != 0) freeCount--;
+                free[w] &= ~(1L << i);
+                if (free[w] == 0) summary[w >>> 6] &= ~(1L << w);
+            }
+        }
+
+        boolean isFree(int i) {
+            return (free[i >>> 6] & (1L << i)) != 0;
+        }
+
+        int first() {
+            for (int s = 0; s < summary.length; s++) {
+                if (summary[s] == 0) continue;
+                int w = (s << 6) + Long.numberOfTrailingZeros(summary[s]);
+                return (w << 6) + Long.numberOfTrailingZeros(free[w]);
+            }
+            return -1;
+        }
+    }
+
+    private static SpaceAllocator instance;
+
+    // 进程内唯一的分配器，第一次使用时按占用表恢复状态
+    public static synchronized SpaceAllocator get(Context context) {
+        if (instance == null) {
+            float[][] xy = Lot.coordinates();
+            instance = new SpaceAllocator(Lot.ZONES, Lot.SIZES, new SpaceIndex(xy[0], xy[1], 0));
+            for (String space : TagRegistry.get(context).reservedSpaces()) {
+                instance.reserve(space);
+            }
+            for (String space : OccupancyStore.get(context).snapshot().keySet()) {
+                instance.take(space);
+            }
+        }
+        return instance;
+    }
+
+    private final Map<String, Zone> zones = new LinkedHashMap<>();
+    private final SpaceIndex index;
+    private final Set<String> reserved = new HashSet<>();
+    private final Set<String> reservedTaken = new HashSet<>();
+
+    public SpaceAllocator(String[] names, int[] sizes) {
+        this(names, sizes, null);
+    }
+
+    // index 中的车位编号按 names 顺序连续排列
+    public SpaceAllocator(String[] names, int[] sizes, SpaceIndex index) {
+        this.index = index;
+        int start = 0;
+        for (int i = 0; i < names.length; i++) {
+            Zone z = new Zone(names[i], sizes[i]);
+            z.start = start;
+            start += sizes[i];
+            zones.put(names[i], z);
+            if (index != null) {
+                for (int j = 0; j < z.size; j++) index.setFree(z.start + j, true);
+            }
+        }
+    }
+
+    // 离 (x, y) 最近的空位；没有坐标索引时退回按编号分配
+    public synchronized String allocateNear(float x, float y) {
+        if (index == null) return allocate();
+        int n = index.nearestFree(x, y);
+        if (n < 0) return null;
+        for (Zone z : zones.values()) {
+            if (n < z.start + z.size) {
+                mark(z, n - z.start, false);
+                return z.name + (n - z.start + 1);
+            }
+        }
+        return null;
+    }
+
+    // 任意区中最优的空位，车场已满返回 null
+    public synchronized String allocate() {
+        for (Zone z : zones.values()) {
+            String code = allocate(z);
+            if (code != null) return code;
+        }
+        return null;
+    }
+
+    public synchronized String allocate(String zone) {
+        Zone z = zones.get(zone);
+        return z == null ? null : allocate(z);
+    }
+
+    private String allocate(Zone z) {
+        int i = z.first();
+        if (i < 0) return null;
+        mark(z, i, false);
+        return z.name + (i + 1);
+    }
+
+    // 把车位留给固定车主：不再出现在 allocate()/allocateNear() 的结果里，也不计入空位数
+    public synchronized boolean reserve(String code) {
+        Zone z = zoneOf(code);
+        int i = indexOf(z, code);
+        if (i < 0) return false;
+        if (reserved.add(code) && !z.isFree(i)) reservedTaken.add(code);
+        mark(z, i, false);
+        return true;
+    }
+
+    // 占用指定车位（固定车位、恢复状态），已被占用或编号不存在返回 false
+    public synchronized boolean take(String code) {
+        if (reserved.contains(code)) return reservedTaken.add(code);
+        Zone z = zoneOf(code);
+        int i = indexOf(z, code);
+        if (i < 0 || !z.isFree(i)) return false;
+        mark(z, i, false);
+        return true;
+    }
+
+    public synchronized boolean release(String code) {
+        if (reserved.contains(code)) return reservedTaken.remove(code);
+        Zone z = zoneOf(code);
+        int i = indexOf(z, code);
+        if (i < 0 || z.isFree(i)) return false;
+        mark(z, i, true);
+        return true;
+    }
+
+    public synchronized boolean isFree(String code) {
+        if (reserved.contains(code)) return !reservedTaken.contains(code);
+        Zone z = zoneOf(code);
+        int i = indexOf(z, code);
+        return i >= 0 && z.isFree(i);
+    }
+
+    public synchronized int getFreeCount() {
+        int n = 0;
+        for (Zone z : zones.values()) n += z.freeCount;
+        return n;
+    }
+
+    public synchronized int getFreeCount(String zone) {
+        Zone z = zones.get(zone);
+        return z == null ? 0 : z.freeCount;
+    }
+
+    private void mark(Zone z, int i, boolean isFree) {
+        z.set(i, isFree);
+        if (index != null) index.setFree(z.start + i, isFree);
+    }
+
+    private Zone zoneOf(String code) {
+        String prefix = Lot.prefixOf(code);
+        return prefix == null ? null : zones.get(prefix);
+    }
+
+    private static int indexOf(Zone z, String code) {
+        if (z == null) return -1;
+        int i = Lot.numberOf(code) - 1;
+        return i >= 0 && i < z.size ? i : -1;
+    }
+}
\ No newline at end of file
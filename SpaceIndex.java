@@ -0,0 +1,102 @@
+package com.example.newland.car;
+
+// 车位空间索引：按坐标把车位放进均匀网格，每个格子记空位数。
+// 找最近空位时从入口所在格子一圈圈往外找，找到的空位比下一圈可能的最近距离还近就停；占用、释放只改一个格子的计数
+public class SpaceIndex {
+
+    private final float[] xs, ys;
+    private final boolean[] free;
+    private final int[][] cells;
+    private final int[] cellFree;
+    private final int cols, rows;
+    private final float minX, minY, cellSize;
+
+    // cellSize <= 0 时按平均每格 4 个车位自动选取
+    public SpaceIndex(float[] xs, float[] ys, float cellSize) {
+        this.xs = xs;
+        this.ys = ys;
+        free = new boolean[xs.length];
+
+        float x0 = Float.MAX_VALUE, y0 = Float.MAX_VALUE, x1 = -Float.MAX_VALUE, y1 = -Float.MAX_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            x0 = Math.min(x0, xs[i]);
+            y0 = Math.min(y0, ys[i]);
+            x1 = Math.max(x1, xs[i]);
+            y1 = Math.max(y1, ys[i]);
+        }
+        if (xs.length == 0) x0 = y0 = x1 = y1 = 0;
+        if (cellSize <= 0) {
+            float area = Math.max(1f, (x1 - x0) * (y1 - y0));
+            cellSize = Math.max(1f, (float) Math.sqrt(area / Math.max(1, xs.length / 4)));
+        }
+        this.minX = x0;
+        this.minY = y0;
+        this.cellSize = cellSize;
+        cols = (int) ((x1 - x0) / cellSize) + 1;
+        rows = (int) ((y1 - y0) / cellSize) + 1;
+
+        int[] counts = new int[cols * rows];
+        for (int i = 0; i < xs.length; i++) counts[cell(xs[i], ys[i])]++;
+        cells = new int[cols * rows][];
+        for (int c = 0; c < cells.length; c++) cells[c] = new int[counts[c]];
+        int[] fill = new int[cells.length];
+        for (int i = 0; i < xs.length; i++) {
+            int c = cell(xs[i], ys[i]);
+            cells[c][fill[c]++] = i;
+        }
+        cellFree = new int[cells.length];
+    }
+
+    public synchronized void setFree(int i, boolean isFree) {
+        if (free[i] == isFree) return;
+        free[i] = isFree;
+        cellFree[cell(xs[i], ys[i])] += isFree ? 1 : -1;
+    }
+
+    // 离 (x, y) 最近的空位编号，没有空位返回 -1
+    public synchronized int nearestFree(float x, float y) {
+        int cx = clamp((int) Math.floor((x - minX) / cellSize), cols);
+        int cy = clamp((int) Math.floor((y - minY) / cellSize), rows);
+        int best = -1;
+        float bestDist = Float.MAX_VALUE;
+        int maxRing = Math.max(cols, rows);
+
+        for (int r = 0; r <= maxRing; r++) {
+            for (int gy = cy - r; gy <= cy + r; gy++) {
+                if (gy < 0 || gy >= rows) continue;
+                boolean edgeRow = gy == cy - r || gy == cy + r;
+                for (int gx = cx - r; gx <= cx + r; gx += edgeRow ? 1 : 2 * r) {
+                    if (gx >= 0 && gx < cols) {
+                        int c = gy * cols + gx;
+                        if (cellFree[c] > 0) {
+                            for (int i : cells[c]) {
+                                if (!free[i]) continue;
+                                float dx = xs[i] - x, dy = ys[i] - y;
+                                float d = dx * dx + dy * dy;
+                                if (d < bestDist) {
+                                    bestDist = d;
+                                    best = i;
+                                }
+                            }
+                        }
+                    }
+                    if (r == 0) break;
+                }
+            }
+            // 第 r+1 圈以外的格子离查询点至少 r 个格宽
+            float ringDist = r * cellSize;
+            if (best >= 0 && bestDist <= ringDist * ringDist) break;
+        }
+        return best;
+    }
+
+    private int cell(float x, float y) {
+        int cx = clamp((int) ((x - minX) / cellSize), cols);
+        int cy = clamp((int) ((y - minY) / cellSize), rows);
+        return cy * cols + cx;
+    }
+
+    private static int clamp(int v, int n) {
+        return v < 0 ? 0 : (v >= n ? n - 1 : v);
+    }
+}
\ No newline at end of file
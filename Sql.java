@@ -1,68 +1,294 @@
 package com.example.newland.car;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Sql extends SQLiteOpenHelper {
+
+    // 一条停车记录：ontime、offtime 为毫秒时间戳，seconds 为计费时长（秒，与 money 用的分钟数一致），money 单位为分
+    public static class Record {
+        public final String carid, bian;
+        public final long ontime, offtime, seconds, money;
+
+        public Record(String carid, long ontime, long offtime, String bian, long seconds, long money) {
+            this.carid = carid;
+            this.ontime = ontime;
+            this.offtime = offtime;
+            this.bian = bian;
+            this.seconds = seconds;
+            this.money = money;
+        }
+    }
+
+    // insertAll 中途失败：之前已提交的批次保留在库里，inserted 为这些批次的总条数
+    public static class BulkInsertException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        public final int inserted;
+
+        BulkInsertException(int inserted, RuntimeException cause) {
+            super(inserted + " rows committed before failure", cause);
+            this.inserted = inserted;
+        }
+    }
+
+    public static final int DEFAULT_BATCH = 500;
     private static String NAME = "data";
     private static String NAME_TABLE = "data";
-    private static int VERSION = 1;
 
-    public Sql(Context context) {
+    // MIGRATIONS[i] 把数据库从版本 i + 1 升级到 i + 2；新增结构变更只需在末尾追加一组语句
+    private static final String[][] MIGRATIONS = {
+            // 2：按车位、出场时间、车牌查询的索引
+            {
+                    "CREATE INDEX IF NOT EXISTS idx_data_bian ON " + NAME + "(bian)",
+                    "CREATE INDEX IF NOT EXISTS idx_data_offtime ON " + NAME + "(offtime)",
+                    "CREATE INDEX IF NOT EXISTS idx_data_carid ON " + NAME + "(carid)",
+            },
+            // 3：时间改为 INTEGER 毫秒时间戳，时长改为 INTEGER 秒，金额改为 INTEGER 分。
+            // 旧时间是本地时间的 yyyyMMddHHmmss 文本，用 'utc' 修饰符按本地时区换算；旧时长单位是分钟
+            {
+                    "CREATE TABLE data_v3(id integer primary key autoincrement, carid text, ontime integer, offtime integer, bian text, time integer, money integer)",
+                    "INSERT INTO data_v3(id, carid, ontime, offtime, bian, time, money) SELECT id, carid, "
+                            + "CAST(strftime('%s', substr(ontime, 1, 4) || '-' || substr(ontime, 5, 2) || '-' || substr(ontime, 7, 2) || ' ' "
+                            + "|| substr(ontime, 9, 2) || ':' || substr(ontime, 11, 2) || ':' || substr(ontime, 13, 2), 'utc') AS INTEGER) * 1000, "
+                            + "CAST(strftime('%s', substr(offtime, 1, 4) || '-' || substr(offtime, 5, 2) || '-' || substr(offtime, 7, 2) || ' ' "
+                            + "|| substr(offtime, 9, 2) || ':' || substr(offtime, 11, 2) || ':' || substr(offtime, 13, 2), 'utc') AS INTEGER) * 1000, "
+                            + "bian, CAST(time AS INTEGER) * 60, CAST(ROUND(CAST(money AS REAL) * 100) AS INTEGER) FROM " + NAME,
+                    "DROP TABLE " + NAME,
+                    "ALTER TABLE data_v3 RENAME TO " + NAME,
+                    "CREATE INDEX IF NOT EXISTS idx_data_bian ON " + NAME + "(bian)",
+                    "CREATE INDEX IF NOT EXISTS idx_data_offtime ON " + NAME + "(offtime)",
+                    "CREATE INDEX IF NOT EXISTS idx_data_carid ON " + NAME + "(carid)",
+            },
+            // 4：RecordQueue 已落库的日志序号，与记录在同一事务里推进
+            {
+                    "CREATE TABLE meta(key text primary key, value integer)",
+                    "INSERT INTO meta(key, value) VALUES ('flushed_seq', 0)",
+            },
+    };
+    private static int VERSION = MIGRATIONS.length + 1;
+
+    private static Sql instance;
+
+    private final AtomicLong opens = new AtomicLong();
+    private final AtomicLong closes = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+    private final AtomicLong maxQueryNanos = new AtomicLong();
+
+    // 整个进程共用一个连接：SQLiteOpenHelper 缓存打开的数据库，不再每次调用都开关文件。
+    // WAL 模式下读写互不阻塞，Android 会为读操作维护连接池，记录页查询不会卡住道闸写入
+    public static synchronized Sql get(Context context) {
+        if (instance == null) {
+            instance = new Sql(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private Sql(Context context) {
         super(context, NAME_TABLE, null, VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        opens.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        closes.incrementAndGet();
+    }
+
+    public long getOpenCount() {
+        return opens.get();
+    }
+
+    public long getCloseCount() {
+        return closes.get();
+    }
+
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    public double getAverageQueryMillis() {
+        long n = queries.get();
+        return n == 0 ? 0 : queryNanos.get() / 1e6 / n;
+    }
+
+    public double getMaxQueryMillis() {
+        return maxQueryNanos.get() / 1e6;
+    }
+
+    private void timed(long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        queries.incrementAndGet();
+        queryNanos.addAndGet(elapsed);
+        maxQueryNanos.accumulateAndGet(elapsed, Math::max);
     }
 
     @Override
     public void onCreate(SQLiteDatabase sqLiteDatabase) {
         sqLiteDatabase.execSQL("CREATE TABLE " + NAME + "(id integer primary key autoincrement, carid text, ontime text, offtime text, bian text, time text, money text)");
+        migrate(sqLiteDatabase, 1, VERSION);
     }
 
+    // SQLiteOpenHelper 在同一个事务里调用 onUpgrade，中途失败会整体回滚，下次启动重试
     @Override
     public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
+        migrate(sqLiteDatabase, i, i1);
     }
 
-    public void insert(String name, String banji, String odd, String num, String jin, String money) {
+    private static void migrate(SQLiteDatabase db, int from, int to) {
+        for (int v = from; v < to; v++) {
+            for (String sql : MIGRATIONS[v - 1]) {
+                db.execSQL(sql);
+            }
+        }
+    }
+
+    public void insert(String name, long ontime, long offtime, String num, long seconds, long money) {
+        insertAll(Collections.singletonList(new Record(name, ontime, offtime, num, seconds, money)), 1);
+    }
+
+    public int insertAll(List<Record> records) {
+        return insertAll(records, DEFAULT_BATCH);
+    }
+
+    // 批量写入：整批共用一条预编译语句，每 batchSize 条提交一次事务。
+    // 返回写入的条数；中途失败时已提交的批次保留，抛出的 BulkInsertException 带着已写入的条数
+    public int insertAll(List<Record> records, int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize " + batchSize);
+        long start = System.nanoTime();
         SQLiteDatabase db = getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put("carid", name);
-        values.put("ontime", banji);
-        values.put("offtime", odd);
-        values.put("bian", num);
-        values.put("time", jin);
-        values.put("money", money);
-        db.insert(NAME, null, values);
-        db.close();
+        SQLiteStatement statement = compileInsert(db);
+        int done = 0;
+        try {
+            while (done < records.size()) {
+                int end = Math.min(done + batchSize, records.size());
+                db.beginTransaction();
+                try {
+                    for (int i = done; i < end; i++) {
+                        bind(statement, records.get(i));
+                        statement.executeInsert();
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                done = end;
+            }
+        } catch (RuntimeException e) {
+            throw new BulkInsertException(done, e);
+        } finally {
+            statement.close();
+            timed(start);
+        }
+        return done;
+    }
+
+    // 写入一批日志记录并把已落库序号推进到 seq，两者同时提交或同时回滚
+    public void insertJournal(List<Record> records, long seq) {
+        long start = System.nanoTime();
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = compileInsert(db);
+        db.beginTransaction();
+        try {
+            for (Record r : records) {
+                bind(statement, r);
+                statement.executeInsert();
+            }
+            db.execSQL("UPDATE meta SET value = ? WHERE key = 'flushed_seq'", new Object[]{seq});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+            timed(start);
+        }
+    }
+
+    public long getFlushedSeq() {
+        long start = System.nanoTime();
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT value FROM meta WHERE key = 'flushed_seq'", null);
+        long seq = 0;
+        if (cursor != null) {
+            if (cursor.moveToNext()) seq = cursor.getLong(0);
+            cursor.close();
+        }
+        timed(start);
+        return seq;
+    }
+
+    private static SQLiteStatement compileInsert(SQLiteDatabase db) {
+        return db.compileStatement(
+                "INSERT INTO " + NAME + "(carid, ontime, offtime, bian, time, money) VALUES (?, ?, ?, ?, ?, ?)");
+    }
+
+    private static void bind(SQLiteStatement statement, Record r) {
+        statement.clearBindings();
+        if (r.carid != null) statement.bindString(1, r.carid);
+        statement.bindLong(2, r.ontime);
+        statement.bindLong(3, r.offtime);
+        if (r.bian != null) statement.bindString(4, r.bian);
+        statement.bindLong(5, r.seconds);
+        statement.bindLong(6, r.money);
     }
 
     public List<String> query(String bian) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT * FROM " + NAME + " WHERE bian = ?", new String[]{bian});
-        return parseCursor(cursor, db);
+        long start = System.nanoTime();
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT * FROM " + NAME + " WHERE bian = ?", new String[]{bian});
+        return parseCursor(cursor, start);
+    }
+
+    public List<String> querytime(long on, long off) {
+        long start = System.nanoTime();
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT * FROM " + NAME + " WHERE offtime BETWEEN ? AND ?",
+                new String[]{String.valueOf(on), String.valueOf(off)});
+        return parseCursor(cursor, start);
     }
 
-    public List<String> querytime(String on, String off) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT * FROM " + NAME + " WHERE offtime BETWEEN ? AND ?", new String[]{on, off});
-        return parseCursor(cursor, db);
+    // 每个车位的累计收入（分）
+    public Map<String, Long> revenueBySpace() {
+        long start = System.nanoTime();
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT bian, SUM(money) FROM " + NAME + " GROUP BY bian", null);
+        Map<String, Long> map = new HashMap<>();
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                map.put(cursor.getString(0), cursor.getLong(1));
+            }
+            cursor.close();
+        }
+        timed(start);
+        return map;
     }
 
     // 将游标遍历逻辑合并为通用方法
-    private List<String> parseCursor(Cursor cursor, SQLiteDatabase db) {
+    private List<String> parseCursor(Cursor cursor, long start) {
         List<String> list = new ArrayList<>();
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss");
         if (cursor != null) {
             while (cursor.moveToNext()) {
                 String nn = cursor.getString(cursor.getColumnIndex("carid"));
-                String bb = cursor.getString(cursor.getColumnIndex("ontime"));
-                String nnn = cursor.getString(cursor.getColumnIndex("offtime"));
+                String bb = formatTime(cursor, cursor.getColumnIndex("ontime"), format);
+                String nnn = formatTime(cursor, cursor.getColumnIndex("offtime"), format);
                 String jj = cursor.getString(cursor.getColumnIndex("bian"));
-                String tt = cursor.getString(cursor.getColumnIndex("time"));
-                String mm = cursor.getString(cursor.getColumnIndex("money"));
+                long tt = cursor.getLong(cursor.getColumnIndex("time")) / 60;
+                long cents = cursor.getLong(cursor.getColumnIndex("money"));
+                String mm = cents % 100 == 0 ? String.valueOf(cents / 100) : String.format("%d.%02d", cents / 100, cents % 100);
 
                 // 使用 String.format 替代繁琐的 + "\t\t\t" + 拼接
                 String xx = String.format("%s\t\t\t%s\t\t\t%s\t\t\t%s\t\t\tt%s\t\t\t%s", nn, bb, nnn, jj, tt, mm);
@@ -70,7 +296,11 @@ public class Sql extends SQLiteOpenHelper {
             }
             cursor.close();
         }
-        db.close();
+        timed(start);
         return list;
     }
+
+    private static String formatTime(Cursor cursor, int column, SimpleDateFormat format) {
+        return cursor.isNull(column) ? "" : format.format(new Date(cursor.getLong(column)));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.example.newland.car;
+
+// 布隆过滤器：放在标签登记表前面，绝大多数未登记的 EPC 只需几次位运算就能被拒绝。
+// 只能添加不能删除，删除的标签会留下少量误判，由登记表兜底
+public class TagFilter {
+
+    private final long[] bits;
+    private final int m, k, capacity;
+    private int count;
+
+    public TagFilter(int capacity, double falsePositiveRate) {
+        this.capacity = Math.max(capacity, 16);
+        double ln2 = Math.log(2);
+        long size = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        m = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, size));
+        k = Math.max(1, (int) Math.round((double) m / this.capacity * ln2));
+        bits = new long[(m + 63) >>> 6];
+    }
+
+    public void add(long hi, long lo) {
+        int h1 = EpcKey.hash(hi, lo), h2 = EpcKey.hash(lo, hi) | 1;
+        for (int i = 0; i < k; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % m;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        count++;
+    }
+
+    public boolean mightContain(long hi, long lo) {
+        int h1 = EpcKey.hash(hi, lo), h2 = EpcKey.hash(lo, hi) | 1;
+        for (int i = 0; i < k; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % m;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    // 装入数量超过设计容量后误判率会上升，需要按更大容量重建
+    public boolean isFull() {
+        return count > capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.example.newland.car;
+
+import android.content.Context;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// 已登记的 RFID 标签：EPC -> 车牌、车型、许可类型、固定车位。
+// 启动时从 tags.txt 读入以打包 EPC 为键的哈希表，运行中可增删并立即写回文件，无需重启。
+// 查表前先过布隆过滤器，未登记的标签绝大多数在过滤器这一步就被拒绝
+public class TagRegistry {
+
+    public static class Tag {
+        public final EpcKey epc;
+        public final String plate, vehicleClass, permit, space;
+
+        public Tag(String epc, String plate, String vehicleClass, String permit, String space) {
+            this.epc = EpcKey.parse(epc);
+            this.plate = plate;
+            this.vehicleClass = vehicleClass;
+            this.permit = permit;
+            this.space = space;
+        }
+    }
+
+    private static final String FILE = "tags.txt";
+    private static TagRegistry instance;
+
+    public static synchronized TagRegistry get(Context context) {
+        if (instance == null) {
+            instance = new TagRegistry(new File(context.getApplicationContext().getFilesDir(), FILE));
+            instance.load();
+        }
+        return instance;
+    }
+
+    private final File file;
+    private final Journal journal;
+    private EpcMap<Tag> tags = new EpcMap<>();
+    private TagFilter filter;
+    private double falsePositiveRate = 0.01;
+    private int removed;
+    private long hits, rejected, falsePositives;
+    private final long[] key = new long[2];
+
+    // tags.txt 允许手工编辑，不加校验字段
+    public TagRegistry(File file) {
+        this.file = file;
+        this.journal = new Journal(file, false);
+    }
+
+    public synchronized Tag find(CharSequence epc) {
+        if (!EpcKey.parse(epc, key)) {
+            rejected++;
+            return null;
+        }
+        if (filter != null && !filter.mightContain(key[0], key[1])) {
+            rejected++;
+            return null;
+        }
+        Tag tag = tags.get(key[0], key[1]);
+        if (tag == null) falsePositives++;
+        else hits++;
+        return tag;
+    }
+
+    public synchronized void setFalsePositiveRate(double rate) {
+        falsePositiveRate = rate;
+        rebuildFilter();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    // 被过滤器直接拒绝（含格式不对）的次数
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    // 通过了过滤器但登记表里没有的次数
+    public synchronized long getFalsePositiveCount() {
+        return falsePositives;
+    }
+
+    public synchronized int size() {
+        return tags.size();
+    }
+
+    // 登记了固定车位的标签所占的车位号
+    public synchronized Set<String> reservedSpaces() {
+        Set<String> spaces = new LinkedHashSet<>();
+        for (Tag t : tags.values()) {
+            if (!t.space.isEmpty()) spaces.add(t.space);
+        }
+        return spaces;
+    }
+
+    public synchronized void put(Tag tag) {
+        tags.put(tag.epc.hi, tag.epc.lo, tag);
+        if (filter == null || filter.isFull()) rebuildFilter();
+        else filter.add(tag.epc.hi, tag.epc.lo);
+        save();
+    }
+
+    public synchronized boolean remove(String epc) {
+        EpcKey key = EpcKey.parse(epc);
+        if (tags.remove(key.hi, key.lo) == null) return false;
+        // 过滤器不能删除，删掉的多了就重建一次
+        if (++removed > tags.size()) rebuildFilter();
+        save();
+        return true;
+    }
+
+    private void rebuildFilter() {
+        TagFilter f = new TagFilter(tags.size() * 2, falsePositiveRate);
+        for (Tag t : tags.values()) f.add(t.epc.hi, t.epc.lo);
+        filter = f;
+        removed = 0;
+    }
+
+    // 重新读取文件，外部更新了 tags.txt 时调用
+    public synchronized void load() {
+        EpcMap<Tag> loaded = new EpcMap<>();
+        if (!file.exists()) {
+            seed(loaded);
+            tags = loaded;
+            rebuildFilter();
+            save();
+            return;
+        }
+        boolean ok = journal.replay(line -> {
+            String[] f = line.split("\t", -1);
+            if (f.length < 5 || line.startsWith("#")) return;
+            try {
+                add(loaded, new Tag(f[0], f[1], f[2], f[3], f[4]));
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        });
+        if (!ok) return;
+        tags = loaded;
+        rebuildFilter();
+    }
+
+    // 由 Journal 先写临时文件、fsync 再改名，写到一半断电也不会丢掉原来的登记表
+    private void save() {
+        List<String> lines = new ArrayList<>(tags.size());
+        for (Tag t : tags.values()) {
+            lines.add(t.epc + "\t" + t.plate + "\t" + t.vehicleClass + "\t" + t.permit + "\t" + t.space);
+        }
+        journal.rewrite(lines);
+    }
+
+    private static void add(EpcMap<Tag> map, Tag tag) {
+        map.put(tag.epc.hi, tag.epc.lo, tag);
+    }
+
+    private static void seed(EpcMap<Tag> map) {
+        Tag[] defaults = {
+                new Tag("E2 80 68 94 00 00 50 22 44 B2 B8 8B", "苏A123456", "car", "monthly", "A1"),
+                new Tag("E2 80 68 94 00 00 40 15 9A 33 3D 5E", "苏C123456", "car", "monthly", "A2"),
+        };
+        for (Tag t : defaults) add(map, t);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.example.newland.car;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 读卡去抖：车停在道闸前时读卡器会反复上报同一个标签，中间还夹杂漏读。
+// 同一 EPC 在窗口期内的重复读取合并成一次到达，离开（窗口期内没再读到）合并成一次离场
+public class UhfDebouncer {
+
+    public static class Visit {
+        public final String epc;
+        public final long hi, lo;
+        public final long firstSeen;
+        volatile long lastSeen;
+        // 每次到访只抬杆一次、只计费一次，由界面线程设置
+        public boolean entered, exited;
+
+        Visit(String epc, long hi, long lo, long time) {
+            this.epc = epc;
+            this.hi = hi;
+            this.lo = lo;
+            this.firstSeen = time;
+            this.lastSeen = time;
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+    }
+
+    public interface Listener {
+        void onArrival(Visit visit);
+
+        void onDeparture(Visit visit);
+    }
+
+    private static final UhfDebouncer INSTANCE = new UhfDebouncer(3000);
+
+    public static UhfDebouncer get() {
+        return INSTANCE;
+    }
+
+    private final long windowMs;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final long[] key = new long[2];
+    private Visit current;
+    private boolean present;
+
+    public UhfDebouncer(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // 设备读取只在值变化时上报，所以标签一直在场时值保持不变；变成空值或无效值即视为不在场
+    public void onRead(String epc, long time) {
+        Visit left, arrived = null;
+        synchronized (this) {
+            left = expire(time);
+            if (!EpcKey.parse(epc, key)) {
+                if (present) {
+                    present = false;
+                    current.lastSeen = time;
+                }
+            } else if (current != null && current.hi == key[0] && current.lo == key[1]) {
+                present = true;
+                current.lastSeen = time;
+            } else {
+                // 换了一辆车：上一辆直接算离场
+                if (current != null) left = current;
+                current = arrived = new Visit(epc, key[0], key[1], time);
+                present = true;
+            }
+        }
+        if (left != null) for (Listener l : listeners) l.onDeparture(left);
+        if (arrived != null) for (Listener l : listeners) l.onArrival(arrived);
+    }
+
+    // 当前在道闸前的到访，已离场则返回 null
+    public Visit current(long now) {
+        Visit left, visit;
+        synchronized (this) {
+            left = expire(now);
+            visit = current;
+        }
+        if (left != null) for (Listener l : listeners) l.onDeparture(left);
+        return visit;
+    }
+
+    private Visit expire(long now) {
+        if (current == null || present || now - current.lastSeen <= windowMs) return null;
+        Visit left = current;
+        current = null;
+        return left;
+    }
+}
\ No newline at end of file
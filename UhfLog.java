@@ -0,0 +1,113 @@
+package com.example.newland.car;
+
+// 最近的读卡记录环形缓冲区：EPC、读卡时间、RSSI、天线号按列存放在预先分配的基本类型数组里，
+// 写入和遍历都不分配对象，写满后覆盖最旧的记录。EPC 为 0/0 表示这次读取没有读到标签
+public class UhfLog {
+
+    public static final int RSSI_UNKNOWN = Short.MIN_VALUE;
+
+    public interface Visitor {
+        // 返回 false 停止遍历
+        boolean read(long hi, long lo, long time, int rssi, int antenna);
+    }
+
+    private static final UhfLog INSTANCE = new UhfLog(1024);
+
+    public static UhfLog get() {
+        return INSTANCE;
+    }
+
+    private final long[] his, los, times;
+    private final short[] rssis;
+    private final byte[] antennas;
+    private final int mask;
+    private final long[] key = new long[2];
+    private long written;
+
+    public UhfLog(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        his = new long[cap];
+        los = new long[cap];
+        times = new long[cap];
+        rssis = new short[cap];
+        antennas = new byte[cap];
+        mask = cap - 1;
+    }
+
+    // 网关的 uhf 键只给出 EPC 文本，没有 RSSI 和天线号
+    public synchronized void record(CharSequence epc, long time) {
+        if (EpcKey.parse(epc, key)) record(key[0], key[1], time, RSSI_UNKNOWN, 0);
+        else record(0, 0, time, RSSI_UNKNOWN, 0);
+    }
+
+    public synchronized void record(long hi, long lo, long time, int rssi, int antenna) {
+        int i = (int) (written++ & mask);
+        his[i] = hi;
+        los[i] = lo;
+        times[i] = time;
+        rssis[i] = (short) rssi;
+        antennas[i] = (byte) antenna;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(written, mask + 1);
+    }
+
+    public synchronized long getTotal() {
+        return written;
+    }
+
+    // 从最新到最旧遍历
+    public synchronized void forEach(Visitor visitor) {
+        for (long n = written - 1; n >= 0 && n >= written - (mask + 1); n--) {
+            int i = (int) (n & mask);
+            if (!visitor.read(his[i], los[i], times[i], rssis[i], antennas[i])) return;
+        }
+    }
+
+    // 最近 windowMs 内每秒读到标签的次数
+    public synchronized double readRate(long now, long windowMs) {
+        return countSince(now - windowMs, false) * 1000.0 / windowMs;
+    }
+
+    // 最近 windowMs 内没读到标签的次数，用来发现漏读
+    public synchronized int missedReads(long now, long windowMs) {
+        return countSince(now - windowMs, true);
+    }
+
+    // 最近 windowMs 内出现过的不同标签数，反映车道拥堵程度
+    public synchronized int distinctTags(long now, long windowMs) {
+        int distinct = 0;
+        long since = now - windowMs;
+        for (long n = written - 1; n >= 0 && n >= written - (mask + 1); n--) {
+            int i = (int) (n & mask);
+            if (times[i] < since) break;
+            if (his[i] == 0 && los[i] == 0) continue;
+            boolean seen = false;
+            for (long m = n + 1; m < written && !seen; m++) {
+                int j = (int) (m & mask);
+                seen = his[j] == his[i] && los[j] == los[i];
+            }
+            if (!seen) distinct++;
+        }
+        return distinct;
+    }
+
+    public synchronized long lastSeen(long hi, long lo) {
+        for (long n = written - 1; n >= 0 && n >= written - (mask + 1); n--) {
+            int i = (int) (n & mask);
+            if (his[i] == hi && los[i] == lo) return times[i];
+        }
+        return 0;
+    }
+
+    private int countSince(long since, boolean empty) {
+        int count = 0;
+        for (long n = written - 1; n >= 0 && n >= written - (mask + 1); n--) {
+            int i = (int) (n & mask);
+            if (times[i] < since) break;
+            if ((his[i] == 0 && los[i] == 0) == empty) count++;
+        }
+        return count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.example.newland.car.bench;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// 停车记录批量写入基准：对照原来 Sql.insert() 的做法（每行重新编译语句、每行一个自动提交事务），
+// 与 Sql.insertAll() 的做法（一条预编译语句反复绑定，每 batchSize 行一个事务）。
+// 与 Android 一样开 WAL、synchronous=FULL，每次提交都真正落盘；Sql 依赖 Android，这里通过 sqlite-jdbc 跑同一个 SQLite。
+//
+// 编译运行（在仓库根目录）：
+//   javac -d out benchmark/InsertBenchmark.java
+//   java -cp out:sqlite-jdbc.jar:slf4j-api.jar com.example.newland.car.bench.InsertBenchmark
+//
+// 参数：
+//   --rows N          每种做法写入的行数，默认 5000
+//   --batches a,b,... insertAll 的批大小，默认 1,10,100,500
+//   --repeat N        每种做法跑 N 次取最快的一次，默认 3
+//   --dir DIR         临时数据库所在目录，默认系统临时目录
+public class InsertBenchmark {
+
+    private static final String NAME = "data";
+    private static final String INSERT =
+            "INSERT INTO " + NAME + "(carid, ontime, offtime, bian, time, money) VALUES (?, ?, ?, ?, ?, ?)";
+
+    public static void main(String[] args) throws Exception {
+        int rows = 5000, repeat = 3;
+        String batches = "1,10,100,500";
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--rows": rows = Integer.parseInt(args[i + 1]); break;
+                case "--batches": batches = args[i + 1]; break;
+                case "--repeat": repeat = Integer.parseInt(args[i + 1]); break;
+                case "--dir": dir = new File(args[i + 1]); break;
+                default: throw new IllegalArgumentException("bad option " + args[i]);
+            }
+        }
+
+        System.out.printf("%-16s %10s %12s %10s%n", "mode", "ms", "rows/s", "speedup");
+        // 预热 JIT 和 sqlite-jdbc 的本地库
+        run(dir, Math.min(rows, 1000), 100);
+        double baseline = best(dir, rows, 0, repeat);
+        print("per-row insert", rows, baseline, baseline);
+        for (String b : batches.split(",")) {
+            int batch = Integer.parseInt(b.trim());
+            print("insertAll/" + batch, rows, best(dir, rows, batch, repeat), baseline);
+        }
+    }
+
+    private static double best(File dir, int rows, int batch, int repeat) throws SQLException {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < repeat; i++) best = Math.min(best, run(dir, rows, batch));
+        return best;
+    }
+
+    // batch 为 0 时按原来的逐行写入
+    private static double run(File dir, int rows, int batch) throws SQLException {
+        File db = new File(dir, "insertbench.db");
+        delete(db);
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + db.getPath())) {
+            try (Statement s = c.createStatement()) {
+                s.execute("PRAGMA journal_mode=WAL");
+                s.execute("PRAGMA synchronous=FULL");
+                s.execute("CREATE TABLE " + NAME + "(id integer primary key autoincrement, carid text, ontime integer, offtime integer, bian text, time integer, money integer)");
+                s.execute("CREATE INDEX idx_data_bian ON " + NAME + "(bian)");
+                s.execute("CREATE INDEX idx_data_offtime ON " + NAME + "(offtime)");
+                s.execute("CREATE INDEX idx_data_carid ON " + NAME + "(carid)");
+            }
+            long start = System.nanoTime();
+            if (batch == 0) {
+                for (int i = 0; i < rows; i++) {
+                    try (PreparedStatement p = c.prepareStatement(INSERT)) {
+                        bind(p, i);
+                        p.executeUpdate();
+                    }
+                }
+            } else {
+                c.setAutoCommit(false);
+                try (PreparedStatement p = c.prepareStatement(INSERT)) {
+                    for (int i = 0; i < rows; i++) {
+                        bind(p, i);
+                        p.executeUpdate();
+                        if ((i + 1) % batch == 0) c.commit();
+                    }
+                    c.commit();
+                }
+            }
+            return (System.nanoTime() - start) / 1e6;
+        } finally {
+            delete(db);
+        }
+    }
+
+    private static void bind(PreparedStatement p, int i) throws SQLException {
+        long off = 1700000000000L + i * 60000L;
+        p.setString(1, String.format("苏A%05d", i % 1000));
+        p.setLong(2, off - 3600000L);
+        p.setLong(3, off);
+        p.setString(4, "A" + (1 + i % 6));
+        p.setLong(5, 3600);
+        p.setLong(6, 6000);
+    }
+
+    private static void print(String mode, int rows, double ms, double baseline) {
+        System.out.printf("%-16s %10.1f %12.0f %9.1fx%n", mode, ms, rows / ms * 1000, baseline / ms);
+    }
+
+    private static void delete(File db) {
+        for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+            new File(db.getPath() + suffix).delete();
+        }
+    }
+}
\ No newline at end of file
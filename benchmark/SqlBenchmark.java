@@ -0,0 +1,147 @@
+package com.example.newland.car.bench;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+// 停车记录表的查询基准：同样的数据、同样的 SQL，对比迁移 2 加索引前后 query(bian)、querytime(on, off)
+// 和按车牌查找的耗时，默认 1 万、100 万、1000 万行。表结构和 SQL 与 Sql 类保持一致；
+// Sql 依赖 Android，这里通过 sqlite-jdbc 在 JVM 上跑同一个 SQLite。
+//
+// 编译运行（在仓库根目录）：
+//   javac -d out benchmark/SqlBenchmark.java
+//   java -cp out:sqlite-jdbc.jar:slf4j-api.jar com.example.newland.car.bench.SqlBenchmark
+//
+// 参数：
+//   --rows a,b,...   各轮的行数，默认 10000,1000000,10000000
+//   --spaces N       车位数，默认 100
+//   --days N         出场时间分布在最近多少天内，默认 365
+//   --dir DIR        临时数据库所在目录，默认系统临时目录
+public class SqlBenchmark {
+
+    private static final String NAME = "data";
+    private static final String[] INDEXES = {
+            "CREATE INDEX IF NOT EXISTS idx_data_bian ON " + NAME + "(bian)",
+            "CREATE INDEX IF NOT EXISTS idx_data_offtime ON " + NAME + "(offtime)",
+            "CREATE INDEX IF NOT EXISTS idx_data_carid ON " + NAME + "(carid)",
+    };
+    private static final long DAY = 24L * 3600 * 1000;
+
+    public static void main(String[] args) throws Exception {
+        String rows = "10000,1000000,10000000";
+        int spaces = 100, days = 365;
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--rows": rows = args[i + 1]; break;
+                case "--spaces": spaces = Integer.parseInt(args[i + 1]); break;
+                case "--days": days = Integer.parseInt(args[i + 1]); break;
+                case "--dir": dir = new File(args[i + 1]); break;
+                default: throw new IllegalArgumentException("bad option " + args[i]);
+            }
+        }
+
+        System.out.printf("%10s %8s %12s %12s %12s %12s%n", "rows", "index", "migrate ms", "bian ms", "offtime ms", "carid ms");
+        for (String r : rows.split(",")) {
+            int n = Integer.parseInt(r.trim());
+            File db = new File(dir, "sqlbench-" + n + ".db");
+            delete(db);
+            try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + db.getPath())) {
+                try (Statement s = c.createStatement()) {
+                    s.execute("PRAGMA journal_mode=WAL");
+                    s.execute("CREATE TABLE " + NAME + "(id integer primary key autoincrement, carid text, ontime integer, offtime integer, bian text, time integer, money integer)");
+                }
+                long now = System.currentTimeMillis();
+                fill(c, n, spaces, days, now);
+
+                queries(c, n, "no", 0, spaces, now);
+                long start = System.nanoTime();
+                try (Statement s = c.createStatement()) {
+                    for (String sql : INDEXES) s.execute(sql);
+                }
+                queries(c, n, "yes", (System.nanoTime() - start) / 1e6, spaces, now);
+            }
+            delete(db);
+        }
+    }
+
+    private static void fill(Connection c, int n, int spaces, int days, long now) throws SQLException {
+        Random random = new Random(n);
+        c.setAutoCommit(false);
+        try (PreparedStatement p = c.prepareStatement(
+                "INSERT INTO " + NAME + "(carid, ontime, offtime, bian, time, money) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < n; i++) {
+                long off = now - (long) (random.nextDouble() * days * DAY);
+                long seconds = 60 + random.nextInt(8 * 3600);
+                p.setString(1, plate(random.nextInt(Math.max(1, n / 10))));
+                p.setLong(2, off - seconds * 1000);
+                p.setLong(3, off);
+                p.setString(4, "A" + (1 + random.nextInt(spaces)));
+                p.setLong(5, seconds);
+                p.setLong(6, (seconds + 59) / 60 * 100);
+                p.addBatch();
+                if (i % 10000 == 9999) {
+                    p.executeBatch();
+                    c.commit();
+                }
+            }
+            p.executeBatch();
+            c.commit();
+        }
+        c.setAutoCommit(true);
+    }
+
+    private static void queries(Connection c, int n, String index, double migrateMs, int spaces, long now) throws SQLException {
+        Random random = new Random(1);
+        double bian = time(c, "SELECT * FROM " + NAME + " WHERE bian = ?",
+                p -> p.setString(1, "A" + (1 + random.nextInt(spaces))));
+        double offtime = time(c, "SELECT * FROM " + NAME + " WHERE offtime BETWEEN ? AND ?", p -> {
+            long off = now - (long) (random.nextDouble() * 30 * DAY);
+            p.setLong(1, off - DAY);
+            p.setLong(2, off);
+        });
+        double carid = time(c, "SELECT * FROM " + NAME + " WHERE carid = ?",
+                p -> p.setString(1, plate(random.nextInt(Math.max(1, n / 10)))));
+        System.out.printf("%10d %8s %12s %12.2f %12.2f %12.2f%n", n, index,
+                migrateMs > 0 ? String.format("%.0f", migrateMs) : "-", bian, offtime, carid);
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement p) throws SQLException;
+    }
+
+    // 与 Sql.parseCursor 一样把结果全部读完；跑满 20 次或 2 秒为止，取平均
+    private static double time(Connection c, String sql, Binder binder) throws SQLException {
+        try (PreparedStatement p = c.prepareStatement(sql)) {
+            long total = 0;
+            int runs = 0;
+            while (runs < 20 && total < 2_000_000_000L) {
+                binder.bind(p);
+                long start = System.nanoTime();
+                try (ResultSet rs = p.executeQuery()) {
+                    long sum = 0;
+                    while (rs.next()) sum += rs.getLong(7);
+                    if (sum < 0) System.out.println(sum);
+                }
+                total += System.nanoTime() - start;
+                runs++;
+            }
+            return total / 1e6 / runs;
+        }
+    }
+
+    private static String plate(int i) {
+        return String.format("苏A%05d", i);
+    }
+
+    private static void delete(File db) {
+        for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+            new File(db.getPath() + suffix).delete();
+        }
+    }
+}
\ No newline at end of file
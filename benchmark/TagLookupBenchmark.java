@@ -0,0 +1,104 @@
+package com.example.newland.car.bench;
+
+import com.example.newland.car.EpcKey;
+import com.example.newland.car.EpcMap;
+import com.example.newland.car.TagFilter;
+
+import java.util.Random;
+
+// TagRegistry.find() 查找路径的基准测试：解析 EPC、过布隆过滤器、查 EpcMap，登记数从 2 到 1,000,000。
+// 对照组是原来 Jin 里的做法：拿读到的字符串逐个 equals 已登记的 EPC。
+//
+// 编译运行（在仓库根目录）：
+//   javac -d out EpcKey.java EpcMap.java TagFilter.java benchmark/TagLookupBenchmark.java
+//   java -Xmx2g -cp out com.example.newland.car.bench.TagLookupBenchmark
+//
+// 参数：
+//   --queries N     每个规模的查找次数，默认 2000000
+//   --miss-rate P   查询中未登记标签的比例，默认 0.1
+//   --scan-max N    线性扫描对照组只测到这个规模，默认 10000
+public class TagLookupBenchmark {
+
+    private static final int[] SIZES = {2, 10, 100, 1000, 10000, 100000, 1000000};
+    private static final int POOL = 1 << 16;
+
+    public static void main(String[] args) {
+        int queries = 2000000, scanMax = 10000;
+        double missRate = 0.1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if ("--queries".equals(args[i])) queries = Integer.parseInt(args[i + 1]);
+            else if ("--miss-rate".equals(args[i])) missRate = Double.parseDouble(args[i + 1]);
+            else if ("--scan-max".equals(args[i])) scanMax = Integer.parseInt(args[i + 1]);
+        }
+
+        System.out.printf("%10s %14s %14s%n", "tags", "registry ns", "scan ns");
+        for (int size : SIZES) {
+            Random random = new Random(size);
+            long[] his = new long[size], los = new long[size];
+            EpcMap<String> map = new EpcMap<>(size);
+            TagFilter filter = new TagFilter(size * 2, 0.01);
+            for (int i = 0; i < size; i++) {
+                his[i] = random.nextInt() & 0xffffffffL;
+                los[i] = random.nextLong();
+                map.put(his[i], los[i], "P" + i);
+                filter.add(his[i], los[i]);
+            }
+
+            // 查询串与读写器上报的格式一致（带空格的大写十六进制）
+            String[] pool = new String[POOL];
+            for (int i = 0; i < POOL; i++) {
+                if (random.nextDouble() < missRate) {
+                    pool[i] = new EpcKey(random.nextInt() & 0xffffffffL, random.nextLong()).toString();
+                } else {
+                    int t = random.nextInt(size);
+                    pool[i] = new EpcKey(his[t], los[t]).toString();
+                }
+            }
+
+            // 预热后计时
+            registry(map, filter, pool, queries);
+            double registryNs = registry(map, filter, pool, queries);
+
+            String scanNs = "-";
+            if (size <= scanMax) {
+                String[] registered = new String[size];
+                for (int i = 0; i < size; i++) registered[i] = new EpcKey(his[i], los[i]).toString();
+                int n = (int) Math.max(1000, Math.min(queries, 2e9 / size / 50));
+                scan(registered, pool, n / 4);
+                scanNs = String.format("%.1f", scan(registered, pool, n));
+            }
+            System.out.printf("%10d %14.1f %14s%n", size, registryNs, scanNs);
+        }
+    }
+
+    private static double registry(EpcMap<String> map, TagFilter filter, String[] pool, int n) {
+        long[] key = new long[2];
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            if (!EpcKey.parse(pool[i & (POOL - 1)], key)) continue;
+            if (!filter.mightContain(key[0], key[1])) continue;
+            if (map.get(key[0], key[1]) != null) found++;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (found < 0) System.out.println(found);
+        return (double) elapsed / n;
+    }
+
+    private static double scan(String[] registered, String[] pool, int n) {
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            String epc = pool[i & (POOL - 1)];
+            for (String r : registered) {
+                if (r.equals(epc)) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (found < 0) System.out.println(found);
+        return (double) elapsed / n;
+    }
+}
\ No newline at end of file
@@ -1,7 +1,5 @@
 package com.example.newland.car;
 
-import android.content.Intent;
-import android.content.SharedPreferences;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.view.View;
@@ -13,7 +11,7 @@ import java.util.Date;
 public class shiyong extends AppCompatActivity {
 
     private TextView num, a1, a11, a2, a22;
-    private SharedPreferences preferences;
+    private OccupancyStore occupancy;
     private SimpleDateFormat format2 = new SimpleDateFormat("yyyyMMddHHmmss");
 
     @Override
@@ -21,7 +19,7 @@ public class shiyong extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_shiyong);
 
-        preferences = getSharedPreferences("data", MODE_PRIVATE);
+        occupancy = OccupancyStore.get(this);
         num = findViewById(R.id.num);
         a1 = findViewById(R.id.a1id);
         a11 = findViewById(R.id.a1shijian);
@@ -31,14 +29,32 @@ public class shiyong extends AppCompatActivity {
         get();
     }
 
-    private void get() {
-        int kong = 6;
-        String currentTime = format2.format(new Date());
+    @Override
+    protected void onStart() {
+        super.onStart();
+        occupancy.getCounters().addListener(counters);
+    }
 
-        if ("1".equals(preferences.getString("A1", ""))) {
-            kong--;
-            a1.setText("苏A123456");
-            a11.setText(currentTime);
+    @Override
+    protected void onStop() {
+        occupancy.getCounters().removeListener(counters);
+        super.onStop();
+    }
+
+    // 空位数变化时才重绘
+    private final OccupancyCounters.Listener counters = c -> {
+        int kong = c.getFree();
+        runOnUiThread(() -> {
+            num.setText(String.valueOf(kong));
+            get();
+        });
+    };
+
+    private void get() {
+        OccupancyStore.Entry e1 = occupancy.get("A1");
+        if (e1 != null) {
+            a1.setText(e1.plate);
+            a11.setText(format2.format(new Date(e1.start)));
             a1.setBackgroundResource(R.drawable.green);
             a11.setBackgroundResource(R.drawable.green);
         } else {
@@ -48,10 +64,10 @@ public class shiyong extends AppCompatActivity {
             a11.setBackgroundResource(R.drawable.dark);
         }
 
-        if ("1".equals(preferences.getString("A2", ""))) {
-            kong--;
-            a2.setText("苏C123456");
-            a22.setText(currentTime);
+        OccupancyStore.Entry e2 = occupancy.get("A2");
+        if (e2 != null) {
+            a2.setText(e2.plate);
+            a22.setText(format2.format(new Date(e2.start)));
             a2.setBackgroundResource(R.drawable.green);
             a22.setBackgroundResource(R.drawable.green);
         } else {
@@ -60,11 +76,9 @@ public class shiyong extends AppCompatActivity {
             a2.setBackgroundResource(R.drawable.dark);
             a22.setBackgroundResource(R.drawable.dark);
         }
-
-        num.setText(String.valueOf(kong));
     }
 
     public void backk(View view) {
-        startActivity(new Intent(this, MainActivity.class));
+        startActivity(MainActivity.home(this));
     }
 }
\ No newline at end of file
@@ -0,0 +1,332 @@
+package com.example.newland.car.sim;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Queue;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 本地网关模拟器：不接真实传感器网关也能对 Jin、MainActivity 做联调和压测。
+//
+// 编译运行：
+//   javac -d out simulator/GatewaySimulator.java
+//   java -cp out com.example.newland.car.sim.GatewaySimulator --port 8080 --latency 20 --jitter 10 --rate 3000
+//
+// 接口：
+//   GET  /get?key=uhf                读取键值（文本）
+//   GET  /get?key=m_temp&format=bin  读取传感器的 14 字节二进制格式，与 SensorReading 一致
+//   POST /post?key=m_pushrod_back&value=1   写执行器（value 也可以放在请求体里）
+//   GET  /stats                      请求数、错误数、车辆事件数、排队车辆数
+//
+// 参数：
+//   --port N            监听端口，默认 8080
+//   --latency MS        每个请求的基础延迟
+//   --jitter MS         在基础延迟上叠加 0..MS 的随机抖动
+//   --error-rate P      以概率 P 返回 500
+//   --hang-rate P       以概率 P 挂起 --hang-ms 毫秒（模拟超时）
+//   --hang-ms MS        挂起时长，默认 10000
+//   --garbage-rate P    以概率 P 返回无法解析的传感器值
+//   --rate N            每分钟随机到达 N 辆车
+//   --dwell MS          随机到达的车辆在读卡器前停留的时长，默认 2000
+//   --gap MS            前一辆车离开到下一辆车被读到的间隔，默认 1000
+//   --tags a,b,...      随机到达时使用的 EPC 列表
+//   --script FILE       按脚本安排到达，每行 "毫秒偏移 EPC 停留毫秒"，# 开头为注释
+//
+// 车道上一次只有一辆车：到达时前面还有车就排队，等前车离开并过了 --gap 再被读到，
+// 所以到达率高于车道通过能力时每辆车仍然能被完整读到，只是排队变长
+public class GatewaySimulator {
+
+    private static final String[] DEFAULT_TAGS = {
+            "E2 80 68 94 00 00 50 22 44 B2 B8 8B",
+            "E2 80 68 94 00 00 40 15 9A 33 3D 5E"
+    };
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong arrivals = new AtomicLong();
+    private final AtomicLong passes = new AtomicLong();
+    private final ScheduledExecutorService lane = Executors.newSingleThreadScheduledExecutor();
+    private final Random random = new Random();
+    private final Queue<Arrival> waiting = new ConcurrentLinkedQueue<>();
+
+    private long latencyMs, jitterMs, hangMs = 10000, dwellMs = 2000, gapMs = 1000;
+    private double errorRate, hangRate, garbageRate;
+    private String[] tags = DEFAULT_TAGS;
+    // 只在 lane 线程上读写
+    private boolean occupied;
+
+    private static class Arrival {
+        final String epc;
+        final long dwellMs;
+
+        Arrival(String epc, long dwellMs) {
+            this.epc = epc;
+            this.dwellMs = dwellMs;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        GatewaySimulator sim = new GatewaySimulator();
+        Map<String, String> opts = options(args);
+        int port = Integer.parseInt(opts.getOrDefault("port", "8080"));
+        sim.latencyMs = Long.parseLong(opts.getOrDefault("latency", "0"));
+        sim.jitterMs = Long.parseLong(opts.getOrDefault("jitter", "0"));
+        sim.hangMs = Long.parseLong(opts.getOrDefault("hang-ms", "10000"));
+        sim.dwellMs = Long.parseLong(opts.getOrDefault("dwell", "2000"));
+        sim.gapMs = Long.parseLong(opts.getOrDefault("gap", "1000"));
+        sim.errorRate = Double.parseDouble(opts.getOrDefault("error-rate", "0"));
+        sim.hangRate = Double.parseDouble(opts.getOrDefault("hang-rate", "0"));
+        sim.garbageRate = Double.parseDouble(opts.getOrDefault("garbage-rate", "0"));
+        if (opts.containsKey("tags")) sim.tags = opts.get("tags").split(",");
+
+        sim.start(port);
+        if (opts.containsKey("script")) sim.script(opts.get("script"));
+        if (opts.containsKey("rate")) sim.randomArrivals(Integer.parseInt(opts.get("rate")));
+        System.out.println("gateway simulator listening on :" + port);
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("bad option " + args[i]);
+            opts.put(args[i].substring(2), args[i + 1]);
+        }
+        return opts;
+    }
+
+    public void start(int port) throws IOException {
+        values.put("uhf", "");
+        values.put("m_limit", "0");
+        values.put("m_temp", "24");
+        values.put("m_hum", "50");
+        values.put("m_light", "300");
+        for (String k : new String[]{"m_pushrod_back", "m_pushrod_putt", "m_multi_red", "m_steady_green"}) {
+            values.put(k, "0");
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 256);
+        server.createContext("/get", this::get);
+        server.createContext("/post", this::post);
+        server.createContext("/stats", this::stats);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        // 环境传感器缓慢随机游走
+        lane.scheduleAtFixedRate(() -> {
+            walk("m_temp", 0.2, -10, 45);
+            walk("m_hum", 0.5, 0, 100);
+            walk("m_light", 5, 0, 2000);
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    // 被 POST 成非数字的值从区间中点重新开始，不能让异常终止整个定时任务
+    private void walk(String key, double step, double min, double max) {
+        double v;
+        try {
+            v = Double.parseDouble(values.get(key));
+        } catch (NumberFormatException e) {
+            v = (min + max) / 2;
+        }
+        if (Double.isNaN(v)) v = (min + max) / 2;
+        v += (random.nextDouble() * 2 - 1) * step;
+        values.put(key, String.format(Locale.ROOT, "%.1f", Math.max(min, Math.min(max, v))));
+    }
+
+    // 车辆到达车道：排在前车之后，轮到时读卡器在停留期间一直读到该标签
+    public void arrive(String epc, long dwellMs) {
+        lane.execute(() -> {
+            arrivals.incrementAndGet();
+            waiting.add(new Arrival(epc, dwellMs));
+            if (!occupied) next();
+        });
+    }
+
+    private void next() {
+        Arrival a = waiting.poll();
+        occupied = a != null;
+        if (a == null) return;
+        values.put("uhf", a.epc);
+        lane.schedule(() -> {
+            values.put("uhf", "");
+            lane.schedule(this::next, gapMs, TimeUnit.MILLISECONDS);
+        }, a.dwellMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void script(String file) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\\s+");
+                long at = Long.parseLong(parts[0]);
+                long dwell = Long.parseLong(parts[parts.length - 1]);
+                StringBuilder epc = new StringBuilder();
+                for (int i = 1; i < parts.length - 1; i++) {
+                    if (epc.length() > 0) epc.append(' ');
+                    epc.append(parts[i]);
+                }
+                lane.schedule(() -> arrive(epc.toString(), dwell), at, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void randomArrivals(int perMinute) {
+        long periodUs = 60_000_000L / Math.max(1, perMinute);
+        lane.scheduleAtFixedRate(() -> arrive(tags[random.nextInt(tags.length)], dwellMs),
+                periodUs, periodUs, TimeUnit.MICROSECONDS);
+    }
+
+    // 抬杆后车辆通过，限位开关给出一个脉冲
+    private void onWrite(String key, String value) {
+        if ("m_pushrod_back".equals(key) && "1".equals(value)) {
+            lane.schedule(() -> {
+                passes.incrementAndGet();
+                values.put("m_limit", "1");
+            }, 1000, TimeUnit.MILLISECONDS);
+            lane.schedule(() -> values.put("m_limit", "0"), 1500, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void get(HttpExchange ex) throws IOException {
+        Map<String, String> q = query(ex);
+        if (!fault(ex)) return;
+        String key = q.get("key");
+        String value = key == null ? null : values.get(key);
+        if (value == null) {
+            reply(ex, 404, "unknown key");
+            return;
+        }
+        count(key);
+        boolean sensor = key.equals("m_temp") || key.equals("m_hum") || key.equals("m_light");
+        if (sensor && ThreadLocalRandom.current().nextDouble() < garbageRate) value = "n/a";
+
+        if (sensor && "bin".equals(q.get("format"))) {
+            ByteBuffer b = ByteBuffer.allocate(14);
+            float f;
+            byte quality = 0;
+            try {
+                f = Float.parseFloat(value);
+            } catch (NumberFormatException e) {
+                f = Float.NaN;
+                quality = 1;
+            }
+            byte unit = (byte) (key.equals("m_temp") ? 1 : key.equals("m_hum") ? 2 : 3);
+            b.put(unit).put(quality).putFloat(f).putLong(System.currentTimeMillis());
+            reply(ex, 200, b.array());
+            return;
+        }
+        reply(ex, 200, value);
+    }
+
+    private void post(HttpExchange ex) throws IOException {
+        Map<String, String> q = query(ex);
+        String body = read(ex.getRequestBody());
+        if (!fault(ex)) return;
+        String key = q.get("key");
+        String value = q.containsKey("value") ? q.get("value") : body.trim();
+        if (key == null) {
+            reply(ex, 400, "missing key");
+            return;
+        }
+        count(key);
+        values.put(key, value);
+        onWrite(key, value);
+        reply(ex, 200, "ok");
+    }
+
+    private void stats(HttpExchange ex) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("requests ").append(requests.get()).append('\n');
+        sb.append("errors ").append(errors.get()).append('\n');
+        sb.append("arrivals ").append(arrivals.get()).append('\n');
+        sb.append("waiting ").append(waiting.size()).append('\n');
+        sb.append("passes ").append(passes.get()).append('\n');
+        for (Map.Entry<String, AtomicLong> e : new TreeMap<>(counts).entrySet()) {
+            sb.append("key ").append(e.getKey()).append(' ').append(e.getValue().get()).append('\n');
+        }
+        reply(ex, 200, sb.toString());
+    }
+
+    // 注入延迟与故障；返回 false 表示已经以错误结束
+    private boolean fault(HttpExchange ex) throws IOException {
+        requests.incrementAndGet();
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        long delay = latencyMs + (jitterMs > 0 ? r.nextLong(jitterMs + 1) : 0);
+        if (r.nextDouble() < hangRate) delay += hangMs;
+        sleep(delay);
+        if (r.nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            reply(ex, 500, "injected fault");
+            return false;
+        }
+        return true;
+    }
+
+    private void count(String key) {
+        counts.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange ex) throws IOException {
+        Map<String, String> q = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) return q;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            q.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+        }
+        return q;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[256];
+        int n;
+        while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void reply(HttpExchange ex, int code, String body) throws IOException {
+        reply(ex, code, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void reply(HttpExchange ex, int code, byte[] body) throws IOException {
+        ex.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
\ No newline at end of file
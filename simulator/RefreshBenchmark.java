@@ -0,0 +1,105 @@
+package com.example.newland.car.sim;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// 仪表盘刷新延迟基准：对照原来 MainActivity.get() 的四次串行读取，与 Gateway.read() 的并发读取。
+// Http 类不在仓库里，这里用 HttpURLConnection 复现两种做法：并发组与 Gateway 一样用 4 个 I/O 线程同时发出、等最慢的一个。
+//
+// 编译运行：
+//   javac -d out simulator/GatewaySimulator.java simulator/RefreshBenchmark.java
+//   java -cp out com.example.newland.car.sim.RefreshBenchmark --latency 40 --jitter 20
+//
+// 参数：
+//   --url URL        使用已在运行的模拟器或真实网关，不传则在本进程内启动模拟器
+//   --port N         内置模拟器的端口，默认 18080
+//   --latency MS     内置模拟器的基础延迟，默认 40
+//   --jitter MS      内置模拟器的随机抖动，默认 20
+//   --refreshes N    每种做法的刷新次数，默认 200
+public class RefreshBenchmark {
+
+    private static final String[] KEYS = {"uhf", "m_light", "m_temp", "m_hum"};
+
+    public static void main(String[] args) throws Exception {
+        String url = null, port = "18080", latency = "40", jitter = "20";
+        int refreshes = 200;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url": url = args[i + 1]; break;
+                case "--port": port = args[i + 1]; break;
+                case "--latency": latency = args[i + 1]; break;
+                case "--jitter": jitter = args[i + 1]; break;
+                case "--refreshes": refreshes = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("bad option " + args[i]);
+            }
+        }
+        if (url == null) {
+            GatewaySimulator.main(new String[]{"--port", port, "--latency", latency, "--jitter", jitter});
+            url = "http://localhost:" + port;
+        }
+
+        ExecutorService io = Executors.newFixedThreadPool(KEYS.length);
+        String base = url;
+        // 预热：两种做法都先跑一轮，让连接和 JIT 都热起来
+        serial(base);
+        batched(base, io);
+
+        long[] serial = new long[refreshes], batched = new long[refreshes];
+        for (int i = 0; i < refreshes; i++) {
+            long start = System.nanoTime();
+            serial(base);
+            serial[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            batched(base, io);
+            batched[i] = System.nanoTime() - start;
+        }
+
+        System.out.printf("%-8s %10s %10s %10s%n", "", "mean ms", "p50 ms", "p99 ms");
+        report("serial", serial);
+        report("batched", batched);
+        io.shutdown();
+        System.exit(0);
+    }
+
+    private static void serial(String base) throws IOException {
+        for (String key : KEYS) get(base, key);
+    }
+
+    private static void batched(String base, ExecutorService io) throws InterruptedException, ExecutionException {
+        List<Future<String>> futures = new ArrayList<>(KEYS.length);
+        for (String key : KEYS) futures.add(io.submit(() -> get(base, key)));
+        for (Future<String> f : futures) f.get();
+    }
+
+    private static String get(String base, String key) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL(base + "/get?key=" + key).openConnection();
+        try (InputStream in = c.getResponseCode() < 400 ? c.getInputStream() : c.getErrorStream()) {
+            // 读完响应体，连接才会回到保活池
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[256];
+            int n;
+            while (in != null && (n = in.read(buf)) > 0) out.write(buf, 0, n);
+            return out.toString("UTF-8");
+        }
+    }
+
+    private static void report(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double mean = 0;
+        for (long n : sorted) mean += n;
+        mean /= sorted.length;
+        System.out.printf("%-8s %10.1f %10.1f %10.1f%n", name, mean / 1e6,
+                sorted[sorted.length / 2] / 1e6, sorted[Math.min(sorted.length - 1, sorted.length * 99 / 100)] / 1e6);
+    }
+}
\ No newline at end of file